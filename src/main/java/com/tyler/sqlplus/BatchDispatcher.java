@@ -0,0 +1,128 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.exception.SQLRuntimeException;
+import com.tyler.sqlplus.function.BatchConsumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Groups results into batches as they are read and hands each batch to a pool of consumer threads, so results are read
+ * while earlier batches are processed.
+ * <br/><br/>
+ * At most {@link BatchOptions#getMaxInFlight()} batches are processing or queued at once; {@link #add(Object)} blocks
+ * while that many are in flight. Once a consumer fails, batches which have not started are skipped and no new batches
+ * are dispatched
+ */
+final class BatchDispatcher<T> implements AutoCloseable {
+
+	private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+	private final BatchOptions<T> options;
+
+	private final BatchConsumer<T> consumer;
+
+	private final ExecutorService pool;
+
+	private final Semaphore inFlight;
+
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	private List<T> batch;
+
+	private long batchBytes;
+
+	BatchDispatcher(BatchOptions<T> options, BatchConsumer<T> consumer) {
+		this.options = options;
+		this.consumer = consumer;
+		this.inFlight = new Semaphore(options.getMaxInFlight());
+		int poolId = POOL_COUNT.incrementAndGet();
+		AtomicInteger threadCount = new AtomicInteger();
+		this.pool = Executors.newFixedThreadPool(options.getConsumerThreads(), task -> {
+			Thread thread = new Thread(task, "sqlplus-batch-" + poolId + "-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.batch = new ArrayList<>(Math.min(options.getMaxRows(), BatchOptions.DEFAULT_MAX_ROWS));
+	}
+
+	/**
+	 * Adds a result to the running batch, dispatching the batch once it is full
+	 * @return false if a consumer has failed, in which case no more results should be added
+	 */
+	boolean add(T result) {
+		if (failure.get() != null) {
+			return false;
+		}
+		long resultBytes = options.getMaxBytes() == -1 ? 0 : options.estimateBytes(result);
+		if (!batch.isEmpty() && options.getMaxBytes() != -1 && batchBytes + resultBytes > options.getMaxBytes()) {
+			dispatch();
+		}
+		batch.add(result);
+		batchBytes += resultBytes;
+		if (batch.size() >= options.getMaxRows()) {
+			dispatch();
+		}
+		return failure.get() == null;
+	}
+
+	/**
+	 * Dispatches the final partial batch, if any, if no consumer has failed
+	 */
+	void flush() {
+		if (!batch.isEmpty() && failure.get() == null) {
+			dispatch();
+		}
+	}
+
+	private void dispatch() {
+
+		List<T> fullBatch = Collections.unmodifiableList(batch);
+		batch = new ArrayList<>(Math.min(options.getMaxRows(), BatchOptions.DEFAULT_MAX_ROWS));
+		batchBytes = 0;
+
+		try {
+			inFlight.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failure.compareAndSet(null, e);
+			return;
+		}
+
+		pool.execute(() -> {
+			try {
+				if (failure.get() == null) {
+					consumer.acceptBatch(fullBatch);
+				}
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+			} finally {
+				inFlight.release();
+			}
+		});
+	}
+
+	/**
+	 * Waits for all dispatched batches to finish and shuts down the consumer threads
+	 * @throws SQLRuntimeException Wrapping the first failure of a consumer, if any
+	 */
+	@Override
+	public void close() {
+		inFlight.acquireUninterruptibly(options.getMaxInFlight());
+		pool.shutdown();
+		Throwable firstFailure = failure.get();
+		if (firstFailure instanceof Error) {
+			throw (Error) firstFailure;
+		}
+		if (firstFailure != null) {
+			throw new SQLRuntimeException((Exception) firstFailure);
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.function.BatchConsumer;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Options for {@link Query#batchProcess(Class, BatchOptions, BatchConsumer)}: how batches are sized, and how many are
+ * processed at once.
+ * <br/><br/>
+ * A batch is closed once it holds {@link #setMaxRows(int) max rows} results, or once adding the next result would take
+ * its estimated size past {@link #setMaxBytes(long, ToLongFunction) max bytes}, whichever comes first. A batch always
+ * holds at least one result, even if that result alone is larger than max bytes
+ */
+public final class BatchOptions<T> {
+
+	/** Default maximum number of results per batch */
+	static final int DEFAULT_MAX_ROWS = 1000;
+
+	private int maxRows = DEFAULT_MAX_ROWS;
+
+	/** Maximum estimated size of a batch in bytes, or -1 for no limit */
+	private long maxBytes = -1;
+
+	private ToLongFunction<? super T> byteEstimator;
+
+	private int consumerThreads = 1;
+
+	/** Maximum number of batches being processed or waiting for a consumer thread, or -1 for twice the consumer threads */
+	private int maxInFlight = -1;
+
+	public BatchOptions<T> setMaxRows(int maxRows) {
+		if (maxRows < 1) {
+			throw new IllegalArgumentException("Max rows must be at least 1");
+		}
+		this.maxRows = maxRows;
+		return this;
+	}
+
+	/**
+	 * Caps the estimated size of each batch, using the given function to estimate the size of each result in bytes
+	 */
+	public BatchOptions<T> setMaxBytes(long maxBytes, ToLongFunction<? super T> byteEstimator) {
+		if (maxBytes < 1) {
+			throw new IllegalArgumentException("Max bytes must be at least 1");
+		}
+		if (byteEstimator == null) {
+			throw new IllegalArgumentException("A byte estimator is required to limit batches by size");
+		}
+		this.maxBytes = maxBytes;
+		this.byteEstimator = byteEstimator;
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads which process batches. Defaults to 1, in which case batches are processed in order, one
+	 * at a time, while the next batch is read
+	 */
+	public BatchOptions<T> setConsumerThreads(int consumerThreads) {
+		if (consumerThreads < 1) {
+			throw new IllegalArgumentException("Consumer threads must be at least 1");
+		}
+		this.consumerThreads = consumerThreads;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of batches which may be processing or waiting to be processed at once. Reading pauses
+	 * while this many batches are in flight, which bounds memory use. Defaults to twice the number of consumer threads
+	 */
+	public BatchOptions<T> setMaxInFlight(int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("Max in-flight batches must be at least 1");
+		}
+		this.maxInFlight = maxInFlight;
+		return this;
+	}
+
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public int getConsumerThreads() {
+		return consumerThreads;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight == -1 ? consumerThreads * 2 : maxInFlight;
+	}
+
+	long estimateBytes(T result) {
+		return byteEstimator == null ? 0 : byteEstimator.applyAsLong(result);
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.annotation.Conversion;
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.utility.Fields;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * How objects of one class are bound to the parameters of one {@link SQLTemplate}: which parameters are read from which
+ * fields, and whether any parameters are left to be set manually.
+ * <br/><br/>
+ * Plans are immutable and cached on their template, so binding an object is a flat loop over pre-resolved field
+ * accessors
+ */
+final class BindPlan {
+
+	/** 1-based indices of the parameters which are bound from fields */
+	private final int[] paramIndexes;
+
+	private final List<Function<Object, Object>> getters;
+
+	/** Whether every parameter of the template is bound from a field, so that binding an object completes a batch */
+	private final boolean complete;
+
+	/** 1-based indices of the parameters bound from fields annotated with {@link Conversion}, and the converter names */
+	private final int[] conversionParamIndexes;
+	private final String[] conversionNames;
+
+	private BindPlan(int[] paramIndexes, List<Function<Object, Object>> getters, boolean complete, Map<Integer, String> conversions) {
+		this.paramIndexes = paramIndexes;
+		this.getters = getters;
+		this.complete = complete;
+		this.conversionParamIndexes = new int[conversions.size()];
+		this.conversionNames = new String[conversions.size()];
+		int i = 0;
+		for (Map.Entry<Integer, String> conversion : conversions.entrySet()) {
+			conversionParamIndexes[i] = conversion.getKey();
+			conversionNames[i] = conversion.getValue();
+			i++;
+		}
+	}
+
+	static BindPlan create(Map<String, Integer> paramLabel_paramIndex, Class<?> klass) {
+
+		Map<String, Field> fields_byName = new HashMap<>();
+		for (Field field : klass.getDeclaredFields()) {
+			fields_byName.put(field.getName(), field);
+		}
+
+		List<Integer> paramIndexes = new ArrayList<>();
+		List<Function<Object, Object>> getters = new ArrayList<>();
+		Map<Integer, String> conversions = new HashMap<>();
+		paramLabel_paramIndex.forEach((paramLabel, paramIndex) -> {
+			Field mappedField = fields_byName.get(paramLabel);
+			if (mappedField != null) {
+				paramIndexes.add(paramIndex);
+				getters.add(Fields.getter(mappedField));
+				if (mappedField.isAnnotationPresent(Conversion.class)) {
+					conversions.put(paramIndex, mappedField.getAnnotation(Conversion.class).value());
+				}
+			}
+		});
+
+		return new BindPlan(
+			paramIndexes.stream().mapToInt(Integer::intValue).toArray(),
+			getters,
+			paramIndexes.size() == paramLabel_paramIndex.size(),
+			conversions);
+	}
+
+	/**
+	 * Sets the value of each bound parameter from the given object
+	 * @return true if every parameter of the template was bound
+	 */
+	boolean bind(Object o, ParamBatches paramBatches) {
+		for (int i = 0; i < paramIndexes.length; i++) {
+			paramBatches.set(paramIndexes[i], getters.get(i).apply(o));
+		}
+		return complete;
+	}
+
+	/**
+	 * Makes the binders of parameters bound from fields annotated with {@link Conversion} write through the named
+	 * converters, so values are written the same way they are read
+	 */
+	void applyConversions(ParameterBinder[] paramBinders, ConversionRegistry conversionRegistry) {
+		for (int i = 0; i < conversionParamIndexes.length; i++) {
+			paramBinders[conversionParamIndexes[i] - 1].setConverter(conversionRegistry.getConverter(conversionNames[i]));
+		}
+	}
+
+}
@@ -0,0 +1,238 @@
+package com.tyler.sqlplus;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A concurrent collection of reusable entries which can be borrowed and returned without taking a global lock.
+ * <br/><br/>
+ * Each entry carries its own state which is claimed with a compare-and-set, so a borrower only ever contends with other
+ * borrowers for the same entry. Borrowing looks in three places, in order:
+ * <br/>
+ * 1) A thread-local list of the entries most recently returned by the calling thread, so a thread usually gets its last
+ * entry back without touching shared state
+ * <br/>
+ * 2) The shared list of all entries
+ * <br/>
+ * 3) A hand-off queue, which returning threads offer their entry to directly while there are borrowers waiting
+ */
+class ConcurrentBag<T extends ConcurrentBag.Entry> {
+
+	static final int STATE_NOT_IN_USE = 0;
+	static final int STATE_IN_USE = 1;
+	static final int STATE_RESERVED = -1;
+	static final int STATE_REMOVED = -2;
+
+	/** Number of recently returned entries remembered per thread */
+	private static final int MAX_THREAD_LOCAL_ENTRIES = 16;
+
+	/**
+	 * Base class for objects which can be stored in a {@link ConcurrentBag}
+	 */
+	abstract static class Entry {
+
+		private static final AtomicIntegerFieldUpdater<Entry> STATE = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+		private volatile int state;
+
+		int getState() {
+			return state;
+		}
+
+		void setState(int state) {
+			this.state = state;
+		}
+
+		boolean compareAndSetState(int expect, int update) {
+			return STATE.compareAndSet(this, expect, update);
+		}
+
+	}
+
+	private final CopyOnWriteArrayList<T> sharedList = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<List<WeakReference<T>>> threadList = ThreadLocal.withInitial(ArrayList::new);
+	private final SynchronousQueue<T> handoffQueue = new SynchronousQueue<>(true);
+	private final AtomicInteger waiters = new AtomicInteger();
+
+	private final LongAdder threadLocalHits = new LongAdder();
+	private final LongAdder sharedHits = new LongAdder();
+	private final LongAdder handoffHits = new LongAdder();
+	private final LongAdder failedClaims = new LongAdder();
+	private final LongAdder blockedBorrows = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+
+	/**
+	 * Borrows an entry from the bag, waiting up to the given timeout for one to be returned if none are free.
+	 * @return The borrowed entry, or null if the timeout elapsed
+	 */
+	T borrow(long timeout, TimeUnit unit) throws InterruptedException {
+
+		List<WeakReference<T>> recentlyReturned = threadList.get();
+		for (int i = recentlyReturned.size() - 1; i >= 0; i--) {
+			T entry = recentlyReturned.remove(i).get();
+			if (entry != null && entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+				threadLocalHits.increment();
+				return entry;
+			}
+		}
+
+		waiters.incrementAndGet();
+		try {
+			for (T entry : sharedList) {
+				if (entry.getState() == STATE_NOT_IN_USE) {
+					if (entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+						sharedHits.increment();
+						return entry;
+					}
+					failedClaims.increment();
+				}
+			}
+
+			long remainingNanos = unit.toNanos(timeout);
+			if (remainingNanos <= 0) {
+				return null;
+			}
+
+			blockedBorrows.increment();
+			do {
+				long start = System.nanoTime();
+				T entry = handoffQueue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+				if (entry == null) {
+					break;
+				}
+				if (entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+					handoffHits.increment();
+					return entry;
+				}
+				failedClaims.increment();
+				remainingNanos -= System.nanoTime() - start;
+			} while (remainingNanos > 0);
+
+			timeouts.increment();
+			return null;
+		}
+		finally {
+			waiters.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns a borrowed entry to the bag, handing it directly to a waiting borrower if there is one
+	 */
+	void requite(T entry) {
+
+		entry.setState(STATE_NOT_IN_USE);
+
+		for (int attempt = 0; waiters.get() > 0; attempt++) {
+			if (entry.getState() != STATE_NOT_IN_USE || handoffQueue.offer(entry)) {
+				return;
+			}
+			if ((attempt & 0xff) == 0xff) {
+				LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+			} else {
+				Thread.yield();
+			}
+		}
+
+		List<WeakReference<T>> recentlyReturned = threadList.get();
+		if (recentlyReturned.size() < MAX_THREAD_LOCAL_ENTRIES) {
+			recentlyReturned.add(new WeakReference<>(entry));
+		}
+	}
+
+	/**
+	 * Adds a new entry to the bag. If the entry is not in use and borrowers are waiting, it is handed off to one of them
+	 */
+	void add(T entry) {
+		sharedList.add(entry);
+		while (waiters.get() > 0 && entry.getState() == STATE_NOT_IN_USE && !handoffQueue.offer(entry)) {
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Removes an entry which is either borrowed or reserved
+	 * @return True if the entry was removed by this call
+	 */
+	boolean remove(T entry) {
+		if (!entry.compareAndSetState(STATE_IN_USE, STATE_REMOVED) && !entry.compareAndSetState(STATE_RESERVED, STATE_REMOVED)) {
+			return false;
+		}
+		return sharedList.remove(entry);
+	}
+
+	/**
+	 * Reserves an idle entry so that it cannot be borrowed, typically so that it can be removed
+	 */
+	boolean reserve(T entry) {
+		return entry.compareAndSetState(STATE_NOT_IN_USE, STATE_RESERVED);
+	}
+
+	/**
+	 * Makes a reserved entry available for borrowing again
+	 */
+	void unreserve(T entry) {
+		if (entry.compareAndSetState(STATE_RESERVED, STATE_NOT_IN_USE)) {
+			while (waiters.get() > 0 && entry.getState() == STATE_NOT_IN_USE && !handoffQueue.offer(entry)) {
+				Thread.yield();
+			}
+		}
+	}
+
+	List<T> values(int state) {
+		return sharedList.stream().filter(entry -> entry.getState() == state).collect(toList());
+	}
+
+	int count(int state) {
+		int count = 0;
+		for (T entry : sharedList) {
+			if (entry.getState() == state) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	int size() {
+		return sharedList.size();
+	}
+
+	int getWaitingThreads() {
+		return waiters.get();
+	}
+
+	long getThreadLocalHits() {
+		return threadLocalHits.sum();
+	}
+
+	long getSharedHits() {
+		return sharedHits.sum();
+	}
+
+	long getHandoffHits() {
+		return handoffHits.sum();
+	}
+
+	long getFailedClaims() {
+		return failedClaims.sum();
+	}
+
+	long getBlockedBorrows() {
+		return blockedBorrows.sum();
+	}
+
+	long getTimeouts() {
+		return timeouts.sum();
+	}
+
+}
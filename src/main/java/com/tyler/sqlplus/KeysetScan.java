@@ -0,0 +1,194 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.exception.SQLRuntimeException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Scans the results of a query one page at a time using keyset pagination, running each page in its own short
+ * transaction rather than holding a single connection and snapshot open for the whole scan.
+ * <br/><br/>
+ * Results are ordered by the key columns, which must uniquely identify a row of the base query and appear in its
+ * select list. Each page after the first continues from the key of the last row of the previous page with the
+ * predicate 'k1 > ? or (k1 = ? and k2 > ?) or ...', which is the row value comparison '(k1, k2, ...) > (?, ?, ...)'
+ * written out term by term. The expanded form is used because some databases do not support row value comparisons,
+ * and others support them but do not use an index for them. Whether the database can seek straight to the next page
+ * through an index on the key columns depends on how well its optimizer handles the expanded predicate, so check the
+ * query plan for large scans.
+ * <br/><br/>
+ * Since pages are read in separate transactions, rows changed while the scan runs may or may not be seen, but no row
+ * which exists throughout the scan is skipped or read twice. If a transaction is already bound to the current thread,
+ * pages are read within it instead
+ */
+public final class KeysetScan<T> {
+
+	/** Default number of rows read per page */
+	static final int DEFAULT_PAGE_SIZE = 1000;
+
+	private static final String KEY_PARAM_PREFIX = "keysetLast_";
+
+	private final SQLPlus sqlPlus;
+
+	private final String baseSql;
+
+	private final Class<T> resultClass;
+
+	private String[] keyColumns;
+
+	private int pageSize = DEFAULT_PAGE_SIZE;
+
+	/** Parameters of the base query, applied to the query for every page */
+	private final List<Consumer<Query>> paramSetters = new ArrayList<>();
+
+	KeysetScan(SQLPlus sqlPlus, String baseSql, Class<T> resultClass) {
+		this.sqlPlus = sqlPlus;
+		this.baseSql = baseSql;
+		this.resultClass = resultClass;
+	}
+
+	/**
+	 * Sets the columns by which results are ordered and paged, most significant first. Together they must be unique
+	 * and non-null for every row. Results are always read in ascending key order
+	 */
+	public KeysetScan<T> setKeyColumns(String... keyColumns) {
+		if (keyColumns.length == 0) {
+			throw new IllegalArgumentException("At least one key column is required");
+		}
+		this.keyColumns = keyColumns.clone();
+		return this;
+	}
+
+	public KeysetScan<T> setPageSize(int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be at least 1");
+		}
+		this.pageSize = pageSize;
+		return this;
+	}
+
+	public KeysetScan<T> setParameter(String key, Object val) {
+		paramSetters.add(query -> query.setParameter(key, val));
+		return this;
+	}
+
+	public KeysetScan<T> setParameter(int index, Object val) {
+		paramSetters.add(query -> query.setParameter(index, val));
+		return this;
+	}
+
+	/**
+	 * Streams over all results of the scan. Pages are read lazily as the stream is consumed, each in its own transaction
+	 */
+	public Stream<T> stream() {
+		if (keyColumns == null) {
+			throw new IllegalStateException("Key columns must be set before scanning");
+		}
+		return StreamSupport.stream(new PageSpliterator(), false);
+	}
+
+	/**
+	 * Builds the SQL for the first page, or for a page following the key of the last row of the previous page
+	 */
+	String getPageSql(boolean isFirstPage, String databaseProductName) {
+
+		StringBuilder sql = new StringBuilder("select * from (").append(baseSql).append(") keyset_page");
+
+		// (k1 > :k1) or (k1 = :k1 and k2 > :k2) or ... Written out rather than as a row value comparison, which not all
+		// databases support or use indexes for
+		if (!isFirstPage) {
+			sql.append(" where ");
+			for (int term = 1; term <= keyColumns.length; term++) {
+				if (term > 1) {
+					sql.append(" or ");
+				}
+				sql.append('(');
+				for (int col = 1; col < term; col++) {
+					sql.append(keyColumns[col - 1]).append(" = :").append(keyParam(term, col)).append(" and ");
+				}
+				sql.append(keyColumns[term - 1]).append(" > :").append(keyParam(term, term)).append(')');
+			}
+		}
+
+		sql.append(" order by ").append(String.join(", ", keyColumns));
+
+		String product = databaseProductName == null ? "" : databaseProductName.toLowerCase();
+		if (product.contains("microsoft") || product.contains("oracle")) {
+			sql.append(" offset 0 rows fetch next ").append(pageSize).append(" rows only");
+		}
+		else {
+			sql.append(" limit ").append(pageSize);
+		}
+		return sql.toString();
+	}
+
+	private static String keyParam(int term, int col) {
+		return KEY_PARAM_PREFIX + term + "_" + col;
+	}
+
+	/**
+	 * Reads the page following the given key, or the first page if the key is null, copying the key of the last row read
+	 * into the given array
+	 */
+	private List<T> readPage(Object[] lastKey, Object[] newLastKey) {
+		return sqlPlus.transactAndReturn(session -> {
+			Query query = session.createQuery(getPageSql(lastKey == null, session.getDatabaseProductName()));
+			paramSetters.forEach(setter -> setter.accept(query));
+			if (lastKey != null) {
+				for (int term = 1; term <= keyColumns.length; term++) {
+					for (int col = 1; col <= term; col++) {
+						query.setParameter(keyParam(term, col), lastKey[col - 1]);
+					}
+				}
+			}
+			query.setMaxRows(pageSize);
+			return query.fetchAs(resultClass, keyColumns, newLastKey);
+		});
+	}
+
+	private class PageSpliterator extends Spliterators.AbstractSpliterator<T> {
+
+		private Iterator<T> page = Collections.emptyIterator();
+
+		/** Key of the last row read, or null if no page has been read yet */
+		private Object[] lastKey;
+
+		private boolean isLastPage;
+
+		PageSpliterator() {
+			super(Long.MAX_VALUE, Spliterator.ORDERED);
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			while (!page.hasNext()) {
+				if (isLastPage) {
+					return false;
+				}
+				Object[] newLastKey = new Object[keyColumns.length];
+				List<T> results = readPage(lastKey, newLastKey);
+				isLastPage = results.size() < pageSize;
+				if (!results.isEmpty()) {
+					for (int i = 0; i < keyColumns.length; i++) {
+						if (newLastKey[i] == null) {
+							throw new SQLRuntimeException("Key column " + keyColumns[i] + " is null in a scanned row. Key columns must be non-null");
+						}
+					}
+					lastKey = newLastKey;
+				}
+				page = results.iterator();
+			}
+			action.accept(page.next());
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.tyler.sqlplus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Storage for the parameter batches of a query.
+ * <br/><br/>
+ * Values are kept in a single growable array, one row per batch and one slot per parameter index, with the running
+ * batch occupying the row after the last finished batch. A bit set tracks which parameters of the running batch have
+ * been set, so a batch can be checked for completeness without scanning it
+ */
+final class ParamBatches {
+
+	private static final Object[] EMPTY = {};
+
+	private static final int INITIAL_ROWS = 4;
+
+	private final int paramCount;
+
+	private Object[] values = EMPTY;
+
+	/** Number of finished batches */
+	private int size;
+
+	/** Parameters of the running batch which have been set, by 0-based parameter index */
+	private final BitSet currentSet;
+
+	private int currentSetCount;
+
+	ParamBatches(int paramCount) {
+		this.paramCount = paramCount;
+		this.currentSet = new BitSet(paramCount);
+	}
+
+	/**
+	 * Sets a value for the given 1-based parameter index in the running batch
+	 */
+	void set(int paramIndex, Object value) {
+		int slot = paramIndex - 1;
+		int offset = size * paramCount;
+		if (offset + paramCount > values.length) {
+			grow();
+		}
+		values[offset + slot] = value;
+		if (!currentSet.get(slot)) {
+			currentSet.set(slot);
+			currentSetCount++;
+		}
+	}
+
+	boolean isSet(int paramIndex) {
+		return currentSet.get(paramIndex - 1);
+	}
+
+	/**
+	 * Whether any parameter of the running batch has been set
+	 */
+	boolean isCurrentBatchStarted() {
+		return currentSetCount > 0;
+	}
+
+	/**
+	 * Whether every parameter of the running batch has been set
+	 */
+	boolean isCurrentBatchComplete() {
+		return currentSetCount == paramCount;
+	}
+
+	/**
+	 * Queues the running batch and starts a new one. The caller is responsible for checking the batch is complete
+	 */
+	void finishBatch() {
+		size++;
+		currentSet.clear();
+		currentSetCount = 0;
+	}
+
+	/**
+	 * Number of finished batches
+	 */
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the value of the given 1-based parameter index in the given 0-based finished batch
+	 */
+	Object get(int batch, int paramIndex) {
+		return values[batch * paramCount + paramIndex - 1];
+	}
+
+	/**
+	 * Discards all finished batches, keeping the running batch
+	 */
+	void clearFinished() {
+		int offset = size * paramCount;
+		int keep = 0;
+		if (currentSetCount > 0) {
+			System.arraycopy(values, offset, values, 0, paramCount);
+			keep = paramCount;
+		}
+		Arrays.fill(values, keep, Math.min(values.length, offset + paramCount), null);
+		size = 0;
+	}
+
+	/**
+	 * Returns the values of all finished batches in order, followed by the values set so far in the running batch
+	 */
+	List<Object> values() {
+		List<Object> all = new ArrayList<>(size * paramCount + currentSetCount);
+		int finished = size * paramCount;
+		for (int i = 0; i < finished; i++) {
+			all.add(values[i]);
+		}
+		for (int slot = currentSet.nextSetBit(0); slot >= 0; slot = currentSet.nextSetBit(slot + 1)) {
+			all.add(values[finished + slot]);
+		}
+		return all;
+	}
+
+	private void grow() {
+		int rows = Math.max(INITIAL_ROWS, (values.length / Math.max(paramCount, 1)) * 2);
+		values = Arrays.copyOf(values, rows * paramCount);
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.conversion.SQLConverter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Writes the values of a single query parameter to prepared statements.
+ * <br/><br/>
+ * The converter for a parameter is looked up from the value bound in the first batch and reused for following batches,
+ * only being looked up again if a value of a different class is bound. Null values are bound with the
+ * {@link SQLConverter#getNullType() null type} of the last converter used, so they have the same SQL type as the
+ * parameter's other values. Nulls bound before any other value are bound with {@link Types#NULL}. A parameter bound from a field annotated with
+ * {@link com.tyler.sqlplus.annotation.Conversion} uses the named converter instead, until an object of another class is
+ * bound or the parameter is set manually
+ */
+final class ParameterBinder {
+
+	private final ConversionRegistry conversionRegistry;
+
+	private Class<?> boundClass;
+
+	private SQLConverter<Object> converter;
+
+	/** SQL type nulls are bound with, remembered from the converter of the last non-null value */
+	private int nullType = Types.NULL;
+
+	/** Whether the converter was set explicitly, in which case it is used regardless of the class of the value */
+	private boolean fixedConverter;
+
+	ParameterBinder(ConversionRegistry conversionRegistry) {
+		this.conversionRegistry = conversionRegistry;
+	}
+
+	@SuppressWarnings("unchecked")
+	void setConverter(SQLConverter<?> converter) {
+		this.converter = (SQLConverter<Object>) converter;
+		this.nullType = converter.getNullType();
+		this.fixedConverter = true;
+	}
+
+	/**
+	 * Forgets the converter of this parameter, so the next value bound looks its converter up by class again
+	 */
+	void reset() {
+		this.converter = null;
+		this.boundClass = null;
+		this.nullType = Types.NULL;
+		this.fixedConverter = false;
+	}
+
+	@SuppressWarnings("unchecked")
+	void bind(PreparedStatement ps, int parameterIndex, Object value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, nullType);
+			return;
+		}
+
+		Class<?> valueClass = value.getClass();
+		if (!fixedConverter && valueClass != boundClass) {
+			converter = (SQLConverter<Object>) conversionRegistry.getConverter(valueClass);
+			nullType = converter.getNullType();
+			boundClass = valueClass;
+		}
+		converter.write(ps, parameterIndex, value);
+	}
+
+}
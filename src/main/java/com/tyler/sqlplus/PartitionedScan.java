@@ -0,0 +1,428 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.exception.SQLRuntimeException;
+import com.tyler.sqlplus.function.BatchConsumer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Scans the results of a query in parallel by splitting it into ranges of a partition column, each of which is read
+ * on its own thread, connection and transaction.
+ * <br/><br/>
+ * Partition boundaries are either given explicitly, or spread evenly between the minimum and maximum value of the
+ * partition column, which must then be numeric. Every row falls into exactly one partition: the first partition holds
+ * all values below the first boundary, and the last all values from the last boundary up. Rows with a null partition
+ * value are not read.
+ * <br/><br/>
+ * Since each partition is read in its own transaction, the partitions do not share a consistent snapshot
+ */
+public final class PartitionedScan<T> {
+
+	/** Number of results which may be waiting to be consumed from a merged stream */
+	static final int MERGE_BUFFER_SIZE = 1024;
+
+	private static final AtomicInteger SCAN_COUNT = new AtomicInteger();
+
+	/** How often a partition thread blocked on a full merge buffer checks whether the stream has been closed */
+	private static final long OFFER_POLL_MILLIS = 50;
+
+	private static final String LOWER_PARAM = "partitionLower";
+
+	private static final String UPPER_PARAM = "partitionUpper";
+
+	private final SQLPlus sqlPlus;
+
+	private final String baseSql;
+
+	private final Class<T> resultClass;
+
+	private String partitionColumn;
+
+	private int partitions = Runtime.getRuntime().availableProcessors();
+
+	/** Explicit partition boundaries, or null to find them from the minimum and maximum partition value */
+	private Object[] boundaries;
+
+	/** Parameters of the base query, applied to the query for every partition */
+	private final List<Consumer<Query>> paramSetters = new ArrayList<>();
+
+	PartitionedScan(SQLPlus sqlPlus, String baseSql, Class<T> resultClass) {
+		this.sqlPlus = sqlPlus;
+		this.baseSql = baseSql;
+		this.resultClass = resultClass;
+	}
+
+	/**
+	 * Sets the column whose values are split into ranges. An index on this column lets each partition read only its rows
+	 */
+	public PartitionedScan<T> setPartitionColumn(String partitionColumn) {
+		this.partitionColumn = partitionColumn;
+		return this;
+	}
+
+	/**
+	 * Sets the number of partitions to spread evenly between the minimum and maximum partition value. Defaults to the
+	 * number of available processors
+	 */
+	public PartitionedScan<T> setPartitions(int partitions) {
+		if (partitions < 1) {
+			throw new IllegalArgumentException("Partitions must be at least 1");
+		}
+		this.partitions = partitions;
+		this.boundaries = null;
+		return this;
+	}
+
+	/**
+	 * Sets explicit partition boundaries in ascending order, splitting the scan into one more partition than there are
+	 * boundaries
+	 */
+	public PartitionedScan<T> setBoundaries(Object... boundaries) {
+		if (boundaries.length == 0) {
+			throw new IllegalArgumentException("At least one boundary is required");
+		}
+		this.boundaries = boundaries.clone();
+		return this;
+	}
+
+	public PartitionedScan<T> setParameter(String key, Object val) {
+		paramSetters.add(query -> query.setParameter(key, val));
+		return this;
+	}
+
+	public PartitionedScan<T> setParameter(int index, Object val) {
+		paramSetters.add(query -> query.setParameter(index, val));
+		return this;
+	}
+
+	/**
+	 * Streams over the results of all partitions, merged in no particular order as they are read.
+	 * <br/><br/>
+	 * Partition threads pause while the merge buffer is full. The first failure of any partition stops the others and
+	 * is rethrown to the consumer. Streams which may be abandoned early should be closed with try-with-resources, which
+	 * stops all partitions
+	 */
+	public Stream<T> stream() {
+		List<Object[]> ranges = getRanges();
+		MergingSpliterator merger = new MergingSpliterator(ranges.size());
+		ExecutorService pool = newPool(ranges.size());
+		for (Object[] range : ranges) {
+			pool.execute(() -> merger.readPartition(range));
+		}
+		pool.shutdown();
+		return StreamSupport.stream(merger, false).onClose(() -> {
+			merger.close();
+			awaitTermination(pool);
+		});
+	}
+
+	/**
+	 * Processes the results of each partition in batches of the given size on that partition's thread, with a consumer
+	 * created for each partition from the given factory (which receives the 0-based partition index). Returns once all
+	 * partitions have been processed.
+	 * <br/><br/>
+	 * If any partition fails, the remaining partitions are stopped at their next batch and the first failure is
+	 * rethrown, wrapped in a SQLRuntimeException
+	 */
+	public void batchProcess(int batchSize, IntFunction<BatchConsumer<T>> partitionConsumers) {
+
+		List<Object[]> ranges = getRanges();
+		ExecutorService pool = newPool(ranges.size());
+		AtomicReference<Exception> failure = new AtomicReference<>();
+
+		List<Future<?>> partitionTasks = new ArrayList<>();
+		for (int partition = 0; partition < ranges.size(); partition++) {
+			Object[] range = ranges.get(partition);
+			BatchConsumer<T> consumer = partitionConsumers.apply(partition);
+			partitionTasks.add(pool.submit(() -> {
+				try {
+					sqlPlus.transact(session -> createPartitionQuery(session, range).batchProcess(resultClass, batchSize, batch -> {
+						if (failure.get() != null) {
+							throw new PartitionStoppedException();
+						}
+						consumer.acceptBatch(batch);
+					}));
+				} catch (Exception e) {
+					if (!isCausedBy(e, PartitionStoppedException.class)) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			}));
+		}
+		pool.shutdown();
+
+		for (Future<?> partitionTask : partitionTasks) {
+			try {
+				partitionTask.get();
+			} catch (Exception e) {
+				failure.compareAndSet(null, e);
+			}
+		}
+
+		if (failure.get() != null) {
+			throw new SQLRuntimeException(failure.get());
+		}
+	}
+
+	/**
+	 * Returns the [lower, upper) bounds of each partition, where a null bound is open
+	 */
+	List<Object[]> getRanges() {
+		if (partitionColumn == null) {
+			throw new IllegalStateException("Partition column must be set before scanning");
+		}
+		Object[] bounds = boundaries != null ? boundaries : findBoundaries();
+		List<Object[]> ranges = new ArrayList<>();
+		Object lower = null;
+		for (Object bound : bounds) {
+			ranges.add(new Object[]{ lower, bound });
+			lower = bound;
+		}
+		ranges.add(new Object[]{ lower, null });
+		return ranges;
+	}
+
+	/**
+	 * Spreads boundaries evenly between the minimum and maximum value of the partition column
+	 */
+	private Object[] findBoundaries() {
+
+		Map<String, Object> minMax = sqlPlus.transactAndReturn(session -> {
+			Query query = session.createQuery(
+				"select min(" + partitionColumn + ") as min_value, max(" + partitionColumn + ") as max_value " +
+				"from (" + baseSql + ") partition_bounds");
+			paramSetters.forEach(setter -> setter.accept(query));
+			return query.fetch().get(0);
+		});
+		Object min = getIgnoreCase(minMax, "min_value");
+		Object max = getIgnoreCase(minMax, "max_value");
+		if (min == null || max == null) {
+			return new Object[0]; // No rows, so a single partition
+		}
+		if (!(min instanceof Number) || !(max instanceof Number)) {
+			throw new SQLRuntimeException(
+				"Cannot find boundaries for non-numeric partition column " + partitionColumn + ". Set boundaries explicitly instead");
+		}
+
+		boolean integral = isIntegral((Number) min) && isIntegral((Number) max);
+		BigDecimal low = new BigDecimal(min.toString());
+		BigDecimal range = new BigDecimal(max.toString()).subtract(low);
+		TreeSet<BigDecimal> bounds = new TreeSet<>();
+		for (int i = 1; i < partitions; i++) {
+			BigDecimal bound = low.add(range.multiply(BigDecimal.valueOf(i)).divide(BigDecimal.valueOf(partitions), 10, RoundingMode.FLOOR));
+			if (integral) {
+				bound = bound.setScale(0, RoundingMode.FLOOR);
+			}
+			if (bound.compareTo(low) > 0) {
+				bounds.add(bound);
+			}
+		}
+		return bounds.stream().map(bound -> integral ? bound.toBigIntegerExact() : bound).toArray();
+	}
+
+	private static boolean isIntegral(Number value) {
+		return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte ||
+		       value instanceof BigInteger || (value instanceof BigDecimal && ((BigDecimal) value).scale() <= 0);
+	}
+
+	private static Object getIgnoreCase(Map<String, Object> row, String column) {
+		for (Map.Entry<String, Object> entry : row.entrySet()) {
+			if (entry.getKey().equalsIgnoreCase(column)) {
+				return entry.getValue();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Builds the SQL for a partition with the given bounds, where a null bound is open
+	 */
+	String getPartitionSql(Object lower, Object upper) {
+		StringBuilder sql = new StringBuilder("select * from (").append(baseSql).append(") partition_scan where ");
+		if (lower != null) {
+			sql.append(partitionColumn).append(" >= :").append(LOWER_PARAM);
+		}
+		if (lower != null && upper != null) {
+			sql.append(" and ");
+		}
+		if (upper != null) {
+			sql.append(partitionColumn).append(" < :").append(UPPER_PARAM);
+		}
+		if (lower == null && upper == null) {
+			sql.append(partitionColumn).append(" is not null");
+		}
+		return sql.toString();
+	}
+
+	private Query createPartitionQuery(Session session, Object[] range) {
+		Query query = session.createQuery(getPartitionSql(range[0], range[1]));
+		paramSetters.forEach(setter -> setter.accept(query));
+		if (range[0] != null) {
+			query.setParameter(LOWER_PARAM, range[0]);
+		}
+		if (range[1] != null) {
+			query.setParameter(UPPER_PARAM, range[1]);
+		}
+		return query;
+	}
+
+	private static ExecutorService newPool(int threads) {
+		int scanId = SCAN_COUNT.incrementAndGet();
+		AtomicInteger threadCount = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, task -> {
+			Thread thread = new Thread(task, "sqlplus-partition-" + scanId + "-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private static void awaitTermination(ExecutorService pool) {
+		boolean interrupted = false;
+		while (!pool.isTerminated()) {
+			try {
+				pool.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static boolean isCausedBy(Throwable error, Class<? extends Throwable> causeType) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (causeType.isInstance(cause)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Thrown inside a partition to stop reading it once the scan has been closed or another partition has failed
+	 */
+	private static class PartitionStoppedException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		PartitionStoppedException() {
+			super(null, null, false, false);
+		}
+
+	}
+
+	/**
+	 * Merges the results of all partitions through a bounded queue, in the order they are read
+	 */
+	private class MergingSpliterator extends Spliterators.AbstractSpliterator<T> {
+
+		/** Marks the end of a partition's results in the queue */
+		private final Object partitionEnd = new Object();
+
+		/** Stands in for null results, which cannot be queued */
+		private final Object nullResult = new Object();
+
+		private final BlockingQueue<Object> merged = new ArrayBlockingQueue<>(MERGE_BUFFER_SIZE);
+
+		private final int partitionCount;
+
+		private int finishedPartitions;
+
+		private volatile boolean closed;
+
+		MergingSpliterator(int partitionCount) {
+			super(Long.MAX_VALUE, 0);
+			this.partitionCount = partitionCount;
+		}
+
+		/**
+		 * Reads all results of a partition into the merge queue. Runs on the partition's thread
+		 */
+		void readPartition(Object[] range) {
+			try {
+				sqlPlus.transact(session -> {
+					try (Stream<T> results = createPartitionQuery(session, range).streamAs(resultClass)) {
+						results.forEach(result -> hand(result == null ? nullResult : result));
+					}
+				});
+				hand(partitionEnd);
+			} catch (Exception e) {
+				if (!isCausedBy(e, PartitionStoppedException.class)) {
+					hand(e);
+				}
+			}
+		}
+
+		private void hand(Object item) {
+			try {
+				while (!merged.offer(item, OFFER_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+					if (closed) {
+						throw new PartitionStoppedException();
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new PartitionStoppedException();
+			}
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			while (finishedPartitions < partitionCount) {
+				Object item;
+				try {
+					item = merged.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					close();
+					throw new SQLRuntimeException("Interrupted while waiting for results", e);
+				}
+				if (item == partitionEnd) {
+					finishedPartitions++;
+				}
+				else if (item instanceof Exception) {
+					finishedPartitions = partitionCount;
+					close();
+					throw new SQLRuntimeException((Exception) item);
+				}
+				else {
+					@SuppressWarnings("unchecked") // Only partition results, nullResult and markers are queued
+					T result = item == nullResult ? null : (T) item;
+					action.accept(result);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Stops all partitions which are still reading
+		 */
+		void close() {
+			closed = true;
+			merged.clear();
+		}
+
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.tyler.sqlplus;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Book-keeping wrapper around a physical connection owned by a {@link PooledDataSource}. Its borrow state is tracked by
+ * the pool's {@link ConcurrentBag}
+ */
+class PooledConnection extends ConcurrentBag.Entry {
+
+	final Connection connection;
+
+	final long createdAt;
+
+	/** Time at which this connection was last returned to the pool, or 0 if it has never been borrowed */
+	volatile long lastReturnedAt;
+
+	/** Prepared statements cached for this connection, or null if statement caching is disabled */
+	final StatementCache statementCache;
+
+	private final boolean defaultAutoCommit;
+
+	private final int defaultIsolation;
+
+	PooledConnection(Connection connection, StatementCache statementCache) throws SQLException {
+		this.connection = connection;
+		this.statementCache = statementCache;
+		this.createdAt = System.currentTimeMillis();
+		this.defaultAutoCommit = connection.getAutoCommit();
+		this.defaultIsolation = connection.getTransactionIsolation();
+	}
+
+	boolean isExpired(long maxLifetimeMillis, long now) {
+		return maxLifetimeMillis > 0 && now - createdAt >= maxLifetimeMillis;
+	}
+
+	boolean isValid(int timeoutSeconds) {
+		try {
+			return connection.isValid(timeoutSeconds);
+		}
+		catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Restores the connection to the state it was in when first opened, rolling back any work which was left uncommitted
+	 * by the borrower and checking any statements the borrower left open back into the statement cache
+	 */
+	void reset() throws SQLException {
+		if (statementCache != null) {
+			statementCache.releaseAll();
+		}
+		if (!connection.getAutoCommit()) {
+			connection.rollback();
+		}
+		if (connection.getAutoCommit() != defaultAutoCommit) {
+			connection.setAutoCommit(defaultAutoCommit);
+		}
+		if (connection.getTransactionIsolation() != defaultIsolation) {
+			connection.setTransactionIsolation(defaultIsolation);
+		}
+		connection.clearWarnings();
+	}
+
+	void closeQuietly() {
+		try {
+			connection.close();
+		}
+		catch (SQLException e) {
+			// Connection is being discarded, nothing else can be done with it
+		}
+	}
+
+}
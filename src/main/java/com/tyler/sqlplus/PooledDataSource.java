@@ -0,0 +1,563 @@
+package com.tyler.sqlplus;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * A {@link DataSource} which keeps a bounded pool of physical connections obtained from a delegate data source.
+ * <br/>
+ * Connections handed out by this data source are lightweight handles; closing a handle returns the underlying physical
+ * connection to the pool instead of closing it. Any work left uncommitted by the borrower is rolled back, and the
+ * auto-commit mode and isolation level are restored before the connection is handed out again.
+ * <br/>
+ * Idle connections are evicted once they have been idle for longer than the idle timeout (as long as the pool holds more
+ * than its minimum size), and every connection is retired once it reaches its maximum lifetime.
+ * <br/>
+ * Borrowing and returning connections does not take any pool-wide lock; see {@link ConcurrentBag}. The contention counters
+ * exposed by this class can be used to confirm how borrows are being satisfied under load.
+ * <br/>
+ * Each pooled connection also keeps an LRU cache of its prepared statements (see {@link StatementCache}), so SQL which is
+ * executed repeatedly is only parsed and planned once per physical connection
+ */
+public class PooledDataSource implements DataSource, Closeable {
+
+	private static final int DEFAULT_MIN_SIZE = 0;
+	private static final int DEFAULT_MAX_SIZE = 10;
+	private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+	private static final long DEFAULT_MAX_LIFETIME_MILLIS = TimeUnit.MINUTES.toMillis(30);
+	private static final long DEFAULT_BORROW_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+	private static final long DEFAULT_HOUSEKEEPING_PERIOD_MILLIS = TimeUnit.SECONDS.toMillis(30);
+	private static final int DEFAULT_VALIDATION_TIMEOUT_SECONDS = 3;
+	private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+	/** Source of physical connections */
+	private final DataSource dataSource;
+
+	private int minSize = DEFAULT_MIN_SIZE;
+	private int maxSize = DEFAULT_MAX_SIZE;
+	private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+	private long maxLifetimeMillis = DEFAULT_MAX_LIFETIME_MILLIS;
+	private long borrowTimeoutMillis = DEFAULT_BORROW_TIMEOUT_MILLIS;
+	private long housekeepingPeriodMillis = DEFAULT_HOUSEKEEPING_PERIOD_MILLIS;
+	private boolean validateOnBorrow = true;
+	private int validationTimeoutSeconds = DEFAULT_VALIDATION_TIMEOUT_SECONDS;
+	private int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+
+	private final ConcurrentBag<PooledConnection> connections = new ConcurrentBag<>();
+
+	/** Number of physical connections opened by this pool, including connections which are still being opened */
+	private final AtomicInteger totalConnections = new AtomicInteger();
+
+	private final StatementCache.Counters statementCacheCounters = new StatementCache.Counters();
+
+	private volatile ScheduledExecutorService housekeeper;
+	private volatile boolean closed;
+
+	public PooledDataSource(String url, String username, String password) {
+		this(new BasicDataSource(url, username, password));
+	}
+
+	public PooledDataSource(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	public DataSource getDataSource() {
+		return dataSource;
+	}
+
+	public int getMinSize() {
+		return minSize;
+	}
+
+	/**
+	 * Sets the number of connections the pool will try to keep open at all times, even when idle
+	 */
+	public PooledDataSource setMinSize(int minSize) {
+		if (minSize < 0 || minSize > maxSize) {
+			throw new IllegalArgumentException("Minimum pool size must be between 0 and the maximum pool size (" + maxSize + ")");
+		}
+		this.minSize = minSize;
+		return this;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the maximum number of physical connections, both idle and borrowed, this pool will open
+	 */
+	public PooledDataSource setMaxSize(int maxSize) {
+		if (maxSize < 1 || maxSize < minSize) {
+			throw new IllegalArgumentException("Maximum pool size must be at least 1 and no less than the minimum pool size (" + minSize + ")");
+		}
+		this.maxSize = maxSize;
+		return this;
+	}
+
+	public long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	/**
+	 * Sets how long a connection may sit idle in the pool before it is closed. A value of 0 disables idle eviction
+	 */
+	public PooledDataSource setIdleTimeoutMillis(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		return this;
+	}
+
+	public long getMaxLifetimeMillis() {
+		return maxLifetimeMillis;
+	}
+
+	/**
+	 * Sets the maximum age of a physical connection. Connections older than this are closed as soon as they are idle.
+	 * A value of 0 disables lifetime retirement
+	 */
+	public PooledDataSource setMaxLifetimeMillis(long maxLifetimeMillis) {
+		this.maxLifetimeMillis = maxLifetimeMillis;
+		return this;
+	}
+
+	public long getBorrowTimeoutMillis() {
+		return borrowTimeoutMillis;
+	}
+
+	/**
+	 * Sets how long {@link #getConnection()} will wait for a connection to become available when the pool is exhausted
+	 */
+	public PooledDataSource setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+		return this;
+	}
+
+	public long getHousekeepingPeriodMillis() {
+		return housekeepingPeriodMillis;
+	}
+
+	/**
+	 * Sets how often idle connections are checked for eviction. Takes effect the next time the pool is started
+	 */
+	public PooledDataSource setHousekeepingPeriodMillis(long housekeepingPeriodMillis) {
+		this.housekeepingPeriodMillis = housekeepingPeriodMillis;
+		return this;
+	}
+
+	public boolean isValidateOnBorrow() {
+		return validateOnBorrow;
+	}
+
+	/**
+	 * Sets whether idle connections are checked with {@link Connection#isValid(int)} before being handed out
+	 */
+	public PooledDataSource setValidateOnBorrow(boolean validateOnBorrow) {
+		this.validateOnBorrow = validateOnBorrow;
+		return this;
+	}
+
+	public int getValidationTimeoutSeconds() {
+		return validationTimeoutSeconds;
+	}
+
+	public PooledDataSource setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+		return this;
+	}
+
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	/**
+	 * Sets the maximum number of prepared statements cached per connection. A value of 0 disables statement caching.
+	 * Only affects connections opened after this is set
+	 */
+	public PooledDataSource setStatementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+		return this;
+	}
+
+	public long getStatementCacheHitCount() {
+		return statementCacheCounters.hits.sum();
+	}
+
+	public long getStatementCacheMissCount() {
+		return statementCacheCounters.misses.sum();
+	}
+
+	public long getStatementCacheEvictionCount() {
+		return statementCacheCounters.evictions.sum();
+	}
+
+	/**
+	 * Total number of physical connections currently opened by this pool, both idle and borrowed
+	 */
+	public int getTotalConnections() {
+		return totalConnections.get();
+	}
+
+	public int getIdleConnections() {
+		return connections.count(ConcurrentBag.STATE_NOT_IN_USE);
+	}
+
+	public int getActiveConnections() {
+		return connections.count(ConcurrentBag.STATE_IN_USE);
+	}
+
+	/**
+	 * Number of threads currently trying to obtain a connection which was not already reserved for them
+	 */
+	public int getWaitingThreads() {
+		return connections.getWaitingThreads();
+	}
+
+	/**
+	 * Number of borrows satisfied by a connection the borrowing thread itself had recently returned
+	 */
+	public long getThreadLocalHitCount() {
+		return connections.getThreadLocalHits();
+	}
+
+	/**
+	 * Number of borrows satisfied by scanning the pool's shared list of connections
+	 */
+	public long getSharedHitCount() {
+		return connections.getSharedHits();
+	}
+
+	/**
+	 * Number of borrows satisfied by a connection handed over directly from a returning thread
+	 */
+	public long getHandoffCount() {
+		return connections.getHandoffHits();
+	}
+
+	/**
+	 * Number of times a borrower found an idle connection but lost the race to claim it to another thread
+	 */
+	public long getFailedClaimCount() {
+		return connections.getFailedClaims();
+	}
+
+	/**
+	 * Number of borrows which had to block because the pool was exhausted
+	 */
+	public long getBlockedBorrowCount() {
+		return connections.getBlockedBorrows();
+	}
+
+	public long getBorrowTimeoutCount() {
+		return connections.getTimeouts();
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+
+		if (closed) {
+			throw new SQLException("Connection pool has been closed");
+		}
+		startHousekeeping();
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+		while (true) {
+
+			PooledConnection pooled = borrow(0);
+			if (pooled == null) {
+				pooled = tryCreateConnection();
+			}
+
+			if (pooled == null) {
+				long remainingNanos = deadline - System.nanoTime();
+				if (remainingNanos <= 0) {
+					throw new SQLTransientConnectionException(
+						"Timed out after " + borrowTimeoutMillis + "ms waiting for a connection (pool size: " + maxSize + ", active: " + getActiveConnections() + ")");
+				}
+				pooled = borrow(remainingNanos);
+				if (pooled == null) {
+					continue;
+				}
+			}
+
+			// Connections which have never been handed out were just opened, so there is no point in validating them
+			boolean needsValidation = validateOnBorrow && pooled.lastReturnedAt != 0;
+			if (pooled.isExpired(maxLifetimeMillis, System.currentTimeMillis()) || (needsValidation && !pooled.isValid(validationTimeoutSeconds))) {
+				destroy(pooled);
+				continue;
+			}
+
+			return newHandle(pooled);
+		}
+	}
+
+	/**
+	 * Pooled connections can only be supplied for the configured user, so this method bypasses the pool and opens a
+	 * dedicated physical connection from the underlying data source
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return dataSource.getConnection(username, password);
+	}
+
+	private PooledConnection borrow(long timeoutNanos) throws SQLException {
+		try {
+			return connections.borrow(timeoutNanos, TimeUnit.NANOSECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a pooled connection", e);
+		}
+	}
+
+	/**
+	 * Opens a new physical connection if the pool has not reached its maximum size. The new connection is added to the
+	 * pool already marked as borrowed by the calling thread
+	 */
+	private PooledConnection tryCreateConnection() throws SQLException {
+		PooledConnection pooled = openConnection();
+		if (pooled != null) {
+			pooled.setState(ConcurrentBag.STATE_IN_USE);
+			connections.add(pooled);
+		}
+		return pooled;
+	}
+
+	private PooledConnection openConnection() throws SQLException {
+		while (true) {
+			int total = totalConnections.get();
+			if (total >= maxSize) {
+				return null;
+			}
+			if (totalConnections.compareAndSet(total, total + 1)) {
+				break;
+			}
+		}
+		try {
+			Connection conn = dataSource.getConnection();
+			StatementCache statementCache = statementCacheSize > 0 ? new StatementCache(conn, statementCacheSize, statementCacheCounters) : null;
+			return new PooledConnection(conn, statementCache);
+		}
+		catch (SQLException | RuntimeException e) {
+			totalConnections.decrementAndGet();
+			throw e;
+		}
+	}
+
+	private Connection newHandle(PooledConnection pooled) {
+		return (Connection) Proxy.newProxyInstance(
+			PooledDataSource.class.getClassLoader(),
+			new Class<?>[]{ Connection.class },
+			new ConnectionHandle(pooled)
+		);
+	}
+
+	/**
+	 * Returns a borrowed connection to the pool, or discards it if it can no longer be used
+	 */
+	private void release(PooledConnection pooled) {
+		if (closed || pooled.isExpired(maxLifetimeMillis, System.currentTimeMillis())) {
+			destroy(pooled);
+			return;
+		}
+		try {
+			pooled.reset();
+		}
+		catch (SQLException e) {
+			destroy(pooled);
+			return;
+		}
+		pooled.lastReturnedAt = System.currentTimeMillis();
+		connections.requite(pooled);
+	}
+
+	/**
+	 * Removes a borrowed or reserved connection from the pool and closes it
+	 */
+	private void destroy(PooledConnection pooled) {
+		if (!connections.remove(pooled)) {
+			return;
+		}
+		pooled.closeQuietly();
+		totalConnections.decrementAndGet();
+
+		// A waiting thread cannot notice that capacity has been freed up, so hand it a replacement connection
+		ScheduledExecutorService executor = housekeeper;
+		if (!closed && executor != null && connections.getWaitingThreads() > 0) {
+			executor.execute(() -> fillPool(totalConnections.get() + 1));
+		}
+	}
+
+	private void startHousekeeping() {
+		if (housekeeper == null) {
+			synchronized (this) {
+				if (housekeeper == null && !closed) {
+					ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+						Thread thread = new Thread(runnable, "sqlplus-pool-housekeeper");
+						thread.setDaemon(true);
+						return thread;
+					});
+					executor.scheduleWithFixedDelay(this::housekeep, 0, housekeepingPeriodMillis, TimeUnit.MILLISECONDS);
+					housekeeper = executor;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Evicts idle and expired connections, then tops the pool back up to its minimum size
+	 */
+	void housekeep() {
+		long now = System.currentTimeMillis();
+		for (PooledConnection pooled : connections.values(ConcurrentBag.STATE_NOT_IN_USE)) {
+			boolean isExpired = pooled.isExpired(maxLifetimeMillis, now);
+			boolean isIdleTooLong = idleTimeoutMillis > 0 && now - pooled.lastReturnedAt >= idleTimeoutMillis && totalConnections.get() > minSize;
+			if ((isExpired || isIdleTooLong) && connections.reserve(pooled)) {
+				destroy(pooled);
+			}
+		}
+		fillPool(minSize);
+	}
+
+	private void fillPool(int targetSize) {
+		while (!closed && totalConnections.get() < Math.min(targetSize, maxSize)) {
+			try {
+				PooledConnection pooled = openConnection();
+				if (pooled == null) {
+					return;
+				}
+				pooled.lastReturnedAt = System.currentTimeMillis();
+				connections.add(pooled);
+			}
+			catch (SQLException | RuntimeException e) {
+				return; // Database is unavailable, try again on the next housekeeping run
+			}
+		}
+	}
+
+	/**
+	 * Closes all idle connections and stops housekeeping. Connections which are currently borrowed are closed as they are
+	 * returned
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		synchronized (this) {
+			if (housekeeper != null) {
+				housekeeper.shutdownNow();
+			}
+		}
+		for (PooledConnection pooled : connections.values(ConcurrentBag.STATE_NOT_IN_USE)) {
+			if (connections.reserve(pooled)) {
+				destroy(pooled);
+			}
+		}
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return dataSource.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		dataSource.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		dataSource.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return dataSource.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException(getClass() + " does not support parent loggers");
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> classToUnwrap) throws SQLException {
+		if (classToUnwrap.isInstance(this)) {
+			return classToUnwrap.cast(this);
+		}
+		throw new SQLException(getClass() + " is not a wrapper for " + classToUnwrap);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> c) throws SQLException {
+		return c.isInstance(this);
+	}
+
+	/**
+	 * The connection object handed out to borrowers. All calls are forwarded to the physical connection except for close(),
+	 * which returns the physical connection to the pool, and prepareStatement(), which is served from the connection's
+	 * statement cache where possible. A handle can only be closed once; any further use of it fails
+	 */
+	private class ConnectionHandle implements InvocationHandler {
+
+		private final PooledConnection pooled;
+		private boolean isReturned;
+
+		ConnectionHandle(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					if (!isReturned) {
+						isReturned = true;
+						release(pooled);
+					}
+					return null;
+				case "isClosed":
+					return isReturned || pooled.connection.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled" + pooled.connection;
+			}
+
+			if (isReturned) {
+				throw new SQLException("Connection has already been returned to the pool");
+			}
+
+			if (pooled.statementCache != null && method.getName().equals("prepareStatement") && StatementCache.isCacheable(method)) {
+				return pooled.statementCache.prepare((Connection) proxy, args);
+			}
+
+			try {
+				return method.invoke(pooled.connection, args);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+	}
+
+}
@@ -11,17 +11,15 @@ import com.tyler.sqlplus.function.Functions;
 import com.tyler.sqlplus.mapper.ResultStream;
 import com.tyler.sqlplus.mapper.RowMapper;
 import com.tyler.sqlplus.mapper.RowMapperFactory;
-import com.tyler.sqlplus.utility.Fields;
 import javassist.util.proxy.Proxy;
 
-import java.lang.reflect.Field;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
@@ -33,7 +31,17 @@ import static java.util.stream.Collectors.toList;
  */
 public class Query {
 
-	private static final String REGEX_PARAM = ":\\w+|\\?";
+	/** Number of parameter batches sent per executeBatch() call when streaming bind objects, if no chunk size has been set */
+	static final int DEFAULT_BATCH_CHUNK_SIZE = 1000;
+
+	/** Fetch size used in streaming mode for drivers which stream through a cursor, if no fetch size has been set */
+	static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+
+	/** Number of rows mapped together by one thread in {@link #parallelStreamAs(Class)}, if no chunk size is given */
+	static final int DEFAULT_PARALLEL_CHUNK_SIZE = 256;
+
+	/** Maximum number of parameters sent in a single rewritten multi-row insert for databases without a lower limit */
+	static final int MAX_PARAMS_PER_STATEMENT = 32767;
 
 	/** The current session which constructed this query */
 	private Session session;
@@ -41,60 +49,158 @@ public class Query {
 	/** The raw SQl for this query */
 	private String sql;
 
-	/** The current parameter batch of this query. Queries may have 1 to many parameter batches */
-	private LinkedHashMap<Integer, Object> currentParamBatch = new LinkedHashMap<>();
-
-	/** All parameter batches for this query */
-	private List<LinkedHashMap<Integer, Object>> paramBatches = new ArrayList<>();
-
 	/**
-	 * A mapping of parameter labels to their corresponding ordinal indices in this query.
+	 * The parsed form of this query's SQL, shared with all other queries having the same SQL.
 	 * <br/>
-	 * Queries may contain both string parameter labels and raw '?' parameter labels. For each query, a mapping
-	 * is constructed to associate parameter labels to their respective indices
+	 * Queries may contain both string parameter labels and raw '?' parameter labels. The template associates parameter
+	 * labels to their respective indices
 	 */
-	private Map<String, Integer> paramLabel_paramIndex = new HashMap<>();
+	private final SQLTemplate template;
+
+	/** All parameter batches for this query, including the current running batch. Queries may have 1 to many parameter batches */
+	private final ParamBatches paramBatches;
+
+	/** Number of parameter batches after which a batched update is sent to the database, or 0 to send all batches at once */
+	private int batchChunkSize = 0;
+
+	/** Whether batched single-row INSERT statements should be sent as multi-row 'INSERT ... VALUES (...), (...)' statements */
+	private boolean rewriteBatchedInserts = false;
+
+	/** Fetch size hint for the driver, or -1 to use the driver's default */
+	private int fetchSize = -1;
 
-	/** Conversion registry for this query. By default, this field will be set to the default conversion registry singleton instance */
+	/** Maximum number of rows to return, or -1 to use the driver's default */
+	private int maxRows = -1;
+
+	private int resultSetType = ResultSet.TYPE_FORWARD_ONLY;
+
+	private int resultSetConcurrency = ResultSet.CONCUR_READ_ONLY;
+
+	/** Whether results are read through a cursor as they are consumed rather than buffered in memory by the driver */
+	private boolean streaming = false;
+
+	/** Number of rows read ahead on a background thread while results are consumed, or 0 to read rows only as consumed */
+	private int prefetchRows = 0;
+
+	/** Binders for each parameter of this query by 0-based parameter index, created when parameters are first applied */
+	private ParameterBinder[] paramBinders;
+
+	/** Plan of the last object bound, whose parameter conversions have already been applied to the binders */
+	private BindPlan lastBindPlan;
+
+	/** Conversion registry for this query: that of its SQLPlus instance, or the shared default registry */
 	private ConversionRegistry conversionRegistry = ConversionRegistry.getDefault();
 	
 	/** Should only be constructed by the Session class */
 	Query(String sql, Session session) {
 		this.session = session;
 		this.sql = sql;
-		this.paramLabel_paramIndex = parseParams(sql);
+		this.template = SQLTemplate.of(sql);
+		this.paramBatches = new ParamBatches(template.getParamCount());
+		if (session != null && session.sqlPlus != null) {
+			SQLPlus sqlPlus = session.sqlPlus;
+			this.fetchSize = sqlPlus.getDefaultFetchSize();
+			this.maxRows = sqlPlus.getDefaultMaxRows();
+			this.resultSetType = sqlPlus.getDefaultResultSetType();
+			this.resultSetConcurrency = sqlPlus.getDefaultResultSetConcurrency();
+			this.streaming = sqlPlus.isStreamingByDefault();
+			this.conversionRegistry = sqlPlus.getConversionRegistry();
+		}
 	}
 	
 	public Query setParameter(int index, Object val) {
-		if (index > paramLabel_paramIndex.size()) {
+		if (index > template.getParamCount()) {
 			throw new QueryStructureException(
-				"Parameter index " + index + " is out of range of this query's parameters (max parameters: " + paramLabel_paramIndex.size() + ")");
+				"Parameter index " + index + " is out of range of this query's parameters (max parameters: " + template.getParamCount() + ")");
 		}
 		return setParameter(index + "", val);
 	}
 	
 	public Query setParameter(String key, Object val) {
-		if (!paramLabel_paramIndex.containsKey(key)) {
+		Integer paramIndex = template.getParamIndex(key);
+		if (paramIndex == null) {
 			throw new QueryStructureException("Unknown query parameter: " + key);
 		}
-		int paramIndex = paramLabel_paramIndex.get(key);
-		currentParamBatch.put(paramIndex, val);
+		paramBatches.set(paramIndex, val);
+
+		// Manually set values are written by class, so drop any converter left by a bound object's conversions
+		if (paramBinders != null) {
+			paramBinders[paramIndex - 1].reset();
+			lastBindPlan = null;
+		}
 		return this;
 	}
 
 	/**
-	 * Executes this query, mapping the single result to an instance of the given POJO class.
+	 * Executes this query, mapping the single result to an instance of the given POJO class. At most 2 rows are read.
+	 * @throws NoResultsException If no results are returned
 	 * @throws NonUniqueResultException If more than 1 result is returned
 	 */
 	public <T> T getUniqueResultAs(Class<T> resultClass) {
-			List<T> results = fetchAs(resultClass);
-			if (results.isEmpty()) {
-				throw new NoResultsException();
+		return readAtMost(2, () -> {
+			try (Stream<T> results = streamAs(resultClass)) {
+				Iterator<T> resultIter = results.iterator();
+				if (!resultIter.hasNext()) {
+					throw new NoResultsException();
+				}
+				T result = resultIter.next();
+				if (resultIter.hasNext()) {
+					throw new NonUniqueResultException();
+				}
+				return result;
 			}
-			if (results.size() > 1) {
-				throw new NonUniqueResultException();
+		});
+	}
+
+	/**
+	 * Executes this query, mapping the first result to an instance of the given POJO class. Only 1 row is read from the database
+	 * @return The first result, or an empty optional if there are no results (or the first result is null)
+	 */
+	public <T> Optional<T> first(Class<T> resultClass) {
+		return readAtMost(1, () -> {
+			try (Stream<T> results = streamAs(resultClass)) {
+				Iterator<T> resultIter = results.iterator();
+				return resultIter.hasNext() ? Optional.ofNullable(resultIter.next()) : Optional.empty();
 			}
-			return results.get(0);
+		});
+	}
+
+	/**
+	 * Executes this query, returning whether it produces any results. Only 1 row is read from the database
+	 */
+	public boolean exists() {
+		return readAtMost(1, () -> {
+			try (Stream<ResultSet> results = stream()) {
+				return results.iterator().hasNext();
+			}
+		});
+	}
+
+	/**
+	 * Limits the number of results this query reads from the database. Same as {@link #setMaxRows(int)}
+	 */
+	public Query limit(int maxResults) {
+		return setMaxRows(maxResults);
+	}
+
+	/**
+	 * Runs the given read with this query's max rows lowered to the given limit, restoring the configured value afterwards
+	 */
+	private <R> R readAtMost(int rowLimit, Supplier<R> read) {
+		int configuredMaxRows = maxRows;
+		if (maxRows <= 0 || maxRows > rowLimit) {
+			maxRows = rowLimit;
+		}
+		try {
+			return read.get();
+		} finally {
+			maxRows = configuredMaxRows;
+		}
+	}
+
+	private <T> RowMapper<T> newMapper(Class<T> klass) {
+		boolean generate = session != null && session.sqlPlus != null && session.sqlPlus.isGeneratedRowMappers();
+		return RowMapperFactory.newMapper(klass, conversionRegistry, session, generate);
 	}
 
 	/**
@@ -109,28 +215,57 @@ public class Query {
 	 * Executes this query, mapping the results to the given POJO class
 	 */
 	public <T> List<T> fetchAs(Class<T> resultClass) {
-			return streamAs(resultClass).collect(toList());
+		try (Stream<T> results = streamAs(resultClass)) {
+			return results.collect(toList());
+		}
 	}
 	
+	/**
+	 * Executes this query, mapping the results to the given POJO class and copying the values of the given columns from
+	 * the last row into the given array. Used by scans which continue from where the previous page of results ended
+	 */
+	<T> List<T> fetchAs(Class<T> resultClass, String[] trackedColumns, Object[] lastRowValues) {
+		RowMapper<T> mapper = newMapper(resultClass);
+		List<T> results = new ArrayList<>();
+		try (Stream<ResultSet> rows = stream()) {
+			rows.forEach(rs -> {
+				try {
+					results.add(mapper.map(rs));
+					for (int i = 0; i < trackedColumns.length; i++) {
+						lastRowValues[i] = rs.getObject(trackedColumns[i]);
+					}
+				} catch (SQLException e) {
+					throw new SQLRuntimeException(e);
+				}
+			});
+		}
+		return results;
+	}
+
 	/**
 	 * Processes results in batches of the given size.
 	 *
-	 * This method is useful for processing huge chunks of data which could potentially exhaust available memory if read all at once
+	 * This method is useful for processing huge chunks of data which could potentially exhaust available memory if read all at once.
+	 * Combine with {@link #setStreaming(boolean)} so the driver does not buffer the entire result either.
+	 * If {@link #setPrefetch(int) prefetching} is enabled, the next batch is read while the current one is processed
 	 */
 	public <T> void batchProcess(Class<T> batchType, int batchSize, BatchConsumer<T> processor) {
 
+		// When prefetching, the next batch is read in the background while the processor works on the current one
 		List<T> batch = new ArrayList<>();
-		streamAs(batchType).forEach(data -> {
-			batch.add(data);
-			if (batch.size() == batchSize) {
-				try {
-					processor.acceptBatch(batch);
-				} catch (Exception e) {
-					throw new SQLRuntimeException(e);
+		try (Stream<T> results = prefetchRows > 0 ? prefetchingStreamAs(batchType, batchSize, 1) : streamAs(batchType)) {
+			results.forEach(data -> {
+				batch.add(data);
+				if (batch.size() == batchSize) {
+					try {
+						processor.acceptBatch(batch);
+					} catch (Exception e) {
+						throw new SQLRuntimeException(e);
+					}
+					batch.clear();
 				}
-				batch.clear();
-			}
-		});
+			});
+		}
 
 		// Will have leftover if batch size does not evenly divide into total results
 		if (!batch.isEmpty()) {
@@ -142,8 +277,43 @@ public class Query {
 		}
 	}
 
+	/**
+	 * Processes results in batches sized by the given options, handing each batch to the given processor on a pool of
+	 * consumer threads while the following batches are read.
+	 * <br/><br/>
+	 * Guarantees:
+	 * <br/>- Each batch is a new, unmodifiable list, which the processor may hold on to
+	 * <br/>- This method returns only once every batch has been processed
+	 * <br/>- If the processor fails, reading stops and batches which have not started are skipped. The first failure is
+	 *       rethrown, wrapped in a SQLRuntimeException, once all running batches have finished
+	 * <br/>- With one consumer thread (the default), batches are processed one at a time, in the order of the results.
+	 *       With more threads, batches are processed concurrently and may complete in any order
+	 */
+	public <T> void batchProcess(Class<T> batchType, BatchOptions<T> options, BatchConsumer<T> processor) {
+		try (BatchDispatcher<T> dispatcher = new BatchDispatcher<>(options, processor);
+		     Stream<T> results = streamAs(batchType)) {
+			Iterator<T> resultIter = results.iterator();
+			while (resultIter.hasNext()) {
+				if (!dispatcher.add(resultIter.next())) {
+					break;
+				}
+			}
+			dispatcher.flush();
+		}
+	}
+
+	/**
+	 * Executes this query, streaming the results as instances of the given POJO class.
+	 * <br/>
+	 * The underlying statement is closed once all results have been read or the stream is closed. Streams which may be
+	 * abandoned early (e.g. with findFirst() or limit()) should be closed with try-with-resources, otherwise the statement
+	 * stays open until the end of the transaction
+	 */
 	public <T> Stream<T> streamAs(Class<T> klass) {
-		RowMapper<T> mapper = RowMapperFactory.newMapper(klass, conversionRegistry, session);
+		if (prefetchRows > 0) {
+			return prefetchingStreamAs(klass, Math.max(1, prefetchRows / 2), 2);
+		}
+		RowMapper<T> mapper = newMapper(klass);
 		return stream().map(rs -> {
 			try {
 				return mapper.map(rs);
@@ -153,60 +323,394 @@ public class Query {
 		});
 	}
 	
+	/**
+	 * Streams the results with a background reader staying up to the given number of chunks ahead of the consumer
+	 */
+	private <T> Stream<T> prefetchingStreamAs(Class<T> klass, int chunkSize, int chunksAhead) {
+		newMapper(klass); // Fail early if the class cannot be mapped
+		return openResults((rs, ps, afterClose) -> ResultStream.prefetchingStream(
+			rs, ps, streaming, afterClose, () -> newMapper(klass), chunkSize, chunksAhead));
+	}
+
+	/**
+	 * Executes this query, streaming the results as instances of the given POJO class, with rows mapped in parallel.
+	 * <br/>
+	 * Rows are read from the database by a single reader thread in chunks of {@link #DEFAULT_PARALLEL_CHUNK_SIZE} rows,
+	 * and each chunk is mapped on the fork-join pool. See {@link #parallelStreamAs(Class, int)}
+	 */
+	public <T> Stream<T> parallelStreamAs(Class<T> klass) {
+		return parallelStreamAs(klass, DEFAULT_PARALLEL_CHUNK_SIZE);
+	}
+
+	/**
+	 * Executes this query, streaming the results as instances of the given POJO class, with rows mapped in parallel.
+	 * <br/><br/>
+	 * A single reader thread reads rows from the database and copies their column values out in chunks of the given
+	 * size. Each chunk is then mapped to POJOs on the fork-join pool, so expensive conversions use all cores while the
+	 * connection is only ever used by the reader thread. The stream is ordered, but unordered terminal operations such
+	 * as forEach() process chunks as soon as they are read.
+	 * <br/><br/>
+	 * The calling thread should not use this query's session until the stream has been fully read or closed. As with
+	 * {@link #streamAs(Class)}, streams which may be abandoned early should be closed with try-with-resources
+	 */
+	public <T> Stream<T> parallelStreamAs(Class<T> klass, int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be at least 1");
+		}
+		newMapper(klass); // Fail early if the class cannot be mapped
+		return openResults((rs, ps, afterClose) -> ResultStream.parallelStream(
+			rs, ps, streaming, afterClose, () -> newMapper(klass), chunkSize));
+	}
+
+	/**
+	 * Executes this query, streaming over the rows of its result set. See {@link #streamAs(Class)} for when the underlying
+	 * statement is closed
+	 */
 	public Stream<ResultSet> stream() {
+		return openResults((rs, ps, afterClose) -> ResultStream.stream(rs, ps, streaming, afterClose));
+	}
+
+	/**
+	 * Executes this query and opens a stream over its results with the given factory. The statement is tracked by the
+	 * session until the stream closes it, so it is closed at the latest when the transaction ends. The session closes it
+	 * by closing the stream, which stops any reader thread before the statement is closed
+	 */
+	private <T> Stream<T> openResults(ResultsOpener<T> opener) {
 		try {
-			PreparedStatement ps = prepareStatement(false);
-			return ResultStream.stream(ps.executeQuery());
+			PreparedStatement ps = prepareQueryStatement();
+			ResultSet rs;
+			try {
+				rs = ps.executeQuery();
+			} catch (SQLException e) {
+				ps.close();
+				throw e;
+			}
+			session.trackOpenStatement(ps);
+			try {
+				Stream<T> results = opener.open(rs, ps, () -> session.untrackOpenStatement(ps));
+				session.setOpenStatementCloser(ps, results::close);
+				return results;
+			} catch (SQLException | RuntimeException e) {
+				session.untrackOpenStatement(ps);
+				ps.close();
+				throw e;
+			}
 		} catch (SQLException e) {
 			throw new SQLRuntimeException(e);
 		}
 	}
 
+	@FunctionalInterface
+	private interface ResultsOpener<T> {
+
+		Stream<T> open(ResultSet rs, PreparedStatement ps, Runnable afterClose) throws SQLException;
+
+	}
+
 	/**
 	 * Execute this query's payload as an update statement, returning an array of update counts for each batched statement
 	 */
 	public int[] executeUpdate() {
+		return executeUpdate(null, null, null);
+	}
+	
+	/**
+	 * Executes this query's payload as an update statement, returning the generated keys as instances of the given class
+	 */
+	public <T> List<T> executeUpdate(Class<T> targetKeyClass) {
+		List<T> keys = new ArrayList<>();
+		executeUpdate(null, targetKeyClass, keys);
+		return keys;
+	}
+
+	/**
+	 * Binds each of the given objects as a parameter batch and executes this query's payload as a batched update,
+	 * returning the update counts of all batches.
+	 * <br/><br/>
+	 * Objects are pulled from the stream as they are needed and the update is sent to the database in chunks of
+	 * {@link #setBatchChunkSize(int) batchChunkSize} batches ({@value #DEFAULT_BATCH_CHUNK_SIZE} if not set), so the
+	 * source is never held in memory all at once. Any parameter batches already added to this query are sent with the first chunk.
+	 * If the stream is empty and no batches were added, nothing is executed and an empty array is returned
+	 */
+	public int[] executeUpdate(Stream<?> bindObjects) {
+		return executeUpdate(bindObjects.iterator());
+	}
+
+	/**
+	 * Same as {@link #executeUpdate(Stream)}, pulling bind objects from an iterator
+	 */
+	public int[] executeUpdate(Iterator<?> bindObjects) {
+		return executeUpdate(bindObjects, null, null);
+	}
+
+	/**
+	 * Same as {@link #executeUpdate(Stream)}, returning the keys generated by all chunks as instances of the given class
+	 */
+	public <T> List<T> executeUpdate(Stream<?> bindObjects, Class<T> targetKeyClass) {
+		return executeUpdate(bindObjects.iterator(), targetKeyClass);
+	}
+
+	/**
+	 * Same as {@link #executeUpdate(Iterator)}, returning the keys generated by all chunks as instances of the given class
+	 */
+	public <T> List<T> executeUpdate(Iterator<?> bindObjects, Class<T> targetKeyClass) {
+		List<T> keys = new ArrayList<>();
+		executeUpdate(bindObjects, targetKeyClass, keys);
+		return keys;
+	}
+
+	/**
+	 * Sets the number of parameter batches after which a batched update is sent to the database. Batches are discarded
+	 * once they have been sent. A chunk size of 0 (the default) sends all batches in a single call to executeBatch()
+	 */
+	public Query setBatchChunkSize(int batchChunkSize) {
+		if (batchChunkSize < 0) {
+			throw new IllegalArgumentException("Batch chunk size cannot be negative");
+		}
+		this.batchChunkSize = batchChunkSize;
+		return this;
+	}
+
+	/**
+	 * Sets whether batched single-row 'INSERT ... VALUES (...)' statements are rewritten to insert many rows per
+	 * statement, which saves a round trip per row on drivers which send batches one statement at a time.
+	 * <br/><br/>
+	 * Only applies to inserts with a single VALUES tuple containing all parameters. Rows are grouped to stay within the
+	 * database's limit on parameters per statement. Each row is reported with an update count of 1, or
+	 * {@link Statement#SUCCESS_NO_INFO} if the database's total count for a group does not match its number of rows
+	 */
+	public Query setRewriteBatchedInserts(boolean rewriteBatchedInserts) {
+		this.rewriteBatchedInserts = rewriteBatchedInserts;
+		return this;
+	}
+
+	/**
+	 * Sets the number of rows the driver should fetch from the database at a time when reading results
+	 */
+	public Query setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+		return this;
+	}
+
+	/**
+	 * Limits the number of rows returned when reading results. 0 means no limit
+	 */
+	public Query setMaxRows(int maxRows) {
+		this.maxRows = maxRows;
+		return this;
+	}
+
+	/**
+	 * Sets the type of result set to read results with, one of the {@link ResultSet} TYPE_ constants
+	 */
+	public Query setResultSetType(int resultSetType) {
+		this.resultSetType = resultSetType;
+		return this;
+	}
+
+	/**
+	 * Sets the concurrency of the result set to read results with, one of the {@link ResultSet} CONCUR_ constants
+	 */
+	public Query setResultSetConcurrency(int resultSetConcurrency) {
+		this.resultSetConcurrency = resultSetConcurrency;
+		return this;
+	}
+
+	/**
+	 * Sets whether results should be read from a database cursor as they are consumed, rather than the driver buffering
+	 * the entire result in memory when the query is executed. Driver-specific fetch settings needed for this are applied
+	 * automatically, and the result set is always forward-only and read-only.
+	 * <br/><br/>
+	 * Note that some drivers (notably MySQL) cannot execute other statements on the same session while a streamed result
+	 * is still being read
+	 */
+	public Query setStreaming(boolean streaming) {
+		this.streaming = streaming;
+		return this;
+	}
+
+	/**
+	 * Sets the number of rows to read ahead on a background thread while results are being consumed, or 0 (the default)
+	 * to read rows only as they are consumed. This overlaps fetching rows from the database with processing them.
+	 * <br/><br/>
+	 * Applies to {@link #streamAs(Class)} and the methods built on it, which read ahead up to this many rows, and to
+	 * {@link #batchProcess(Class, int, BatchConsumer)}, which reads the next batch while the current one is processed.
+	 * The reader blocks while its buffer is full, and errors it hits are rethrown to the consuming thread. The session
+	 * should not be used for other statements until the results have been fully read or closed
+	 */
+	public Query setPrefetch(int prefetchRows) {
+		if (prefetchRows < 0) {
+			throw new IllegalArgumentException("Prefetch rows cannot be negative");
+		}
+		this.prefetchRows = prefetchRows;
+		return this;
+	}
+
+	/**
+	 * Executes this query's payload as an update, binding objects from the given source as it goes
+	 * @param bindObjects The objects to bind, or null if only the parameters already set on this query are executed
+	 * @param keyClass The class to read generated keys as, or null if generated keys are not needed
+	 * @param keys Receives the generated keys if a key class is given
+	 */
+	private <T> int[] executeUpdate(Iterator<?> bindObjects, Class<T> keyClass, List<T> keys) {
+
+		if (paramBatches.isCurrentBatchStarted()) {
+			finishBatch();
+		}
+
+		// An empty source of bind objects, such as a stream filtered down to nothing, is simply an update of no rows
+		if (bindObjects == null) {
+			bindObjects = Collections.emptyIterator();
+		}
+		else if (!bindObjects.hasNext() && paramBatches.isEmpty()) {
+			return new int[0];
+		}
+
+		boolean returnKeys = keyClass != null;
+		boolean isStreaming = bindObjects.hasNext();
+		int chunkSize = batchChunkSize > 0 ? batchChunkSize : DEFAULT_BATCH_CHUNK_SIZE;
+		SQLTemplate.ValuesClause rewriteClause = rewriteBatchedInserts ? template.getValuesClause() : null;
+
+		// Everything is already in memory and fits in one chunk, so there is no need to split up the update
+		boolean isSingleChunk = !isStreaming && (batchChunkSize == 0 || paramBatches.size() <= batchChunkSize);
+		if (isSingleChunk && (rewriteClause == null || paramBatches.size() <= 1)) {
+			try (PreparedStatement ps = prepareStatement(returnKeys)) {
+
+				int[] affectedRowsPerBatch;
+				if (paramBatches.size() > 1) {
+					affectedRowsPerBatch = ps.executeBatch();
+				} else {
+					affectedRowsPerBatch = new int[]{ ps.executeUpdate() };
+				}
+
+				if (returnKeys) {
+					readKeys(ps, keyClass, keys);
+				}
+				return affectedRowsPerBatch;
+			}
+			catch (SQLException e) {
+				throw new SQLRuntimeException(e);
+			}
+		}
+
+		// Statements by SQL, which is either the batched statement or one of the multi-row rewrites
+		Map<String, PreparedStatement> statements = new HashMap<>();
 		try {
-			PreparedStatement ps = prepareStatement(false);
 
-			int[] affectedRowsPerBatch;
-			if (paramBatches.size() > 1) {
-				affectedRowsPerBatch = ps.executeBatch();
-			} else {
-				affectedRowsPerBatch = new int[]{ ps.executeUpdate() };
+			int maxRowsPerInsert = 0;
+			if (rewriteClause != null) {
+				maxRowsPerInsert = getMaxRowsPerInsert(template.getParamCount());
 			}
 
-			return affectedRowsPerBatch;
+			IntStream.Builder affectedRows = IntStream.builder();
+			while (true) {
+
+				while (paramBatches.size() < chunkSize && bindObjects.hasNext()) {
+					bind(bindObjects.next());
+					if (paramBatches.isCurrentBatchStarted()) {
+						finishBatch(); // Streamed objects must supply all parameters, this will fail with the missing ones
+					}
+				}
+				if (paramBatches.isEmpty()) {
+					break;
+				}
+
+				// Batches added before execution may already exceed the chunk size, so these are sent in slices
+				int numBatches = paramBatches.size();
+				int sliceSize = rewriteClause != null && isSingleChunk ? numBatches : chunkSize;
+				for (int from = 0; from < numBatches; from += sliceSize) {
+					int to = Math.min(numBatches, from + sliceSize);
+
+					if (rewriteClause != null) {
+						executeMultiRowInserts(rewriteClause, from, to, maxRowsPerInsert, statements, affectedRows, keyClass, keys);
+						continue;
+					}
+
+					PreparedStatement ps = getStatement(statements, template.getFormattedSql(), returnKeys);
+					applyParamBatches(ps, from, to, true);
+					for (int affected : ps.executeBatch()) {
+						affectedRows.add(affected);
+					}
+					if (returnKeys) {
+						readKeys(ps, keyClass, keys);
+					}
+				}
+				paramBatches.clearFinished();
+			}
+
+			return affectedRows.build().toArray();
 		}
 		catch (SQLException e) {
 			throw new SQLRuntimeException(e);
 		}
+		finally {
+			statements.values().forEach(ps -> Functions.runSQL(ps::close));
+		}
 	}
-	
+
 	/**
-	 * Executes this query's payload as an update statement, returning the generated keys as instances of the given class
+	 * Sends the parameter batches in the given range as multi-row inserts of at most the given number of rows each.
+	 * <br/><br/>
+	 * Drivers only report a total update count for a multi-row insert, so each row of a group is given an update count
+	 * of 1 if the total matches the number of rows inserted, or {@link Statement#SUCCESS_NO_INFO} if not (for instance
+	 * when an 'on duplicate key update' clause reports updated rows twice)
 	 */
-	public <T> List<T> executeUpdate(Class<T> targetKeyClass) {
-		try {
-			PreparedStatement ps = prepareStatement(true);
-			if (paramBatches.size() > 1) {
-				ps.executeBatch();
-			} else {
-				ps.executeUpdate();
+	private <T> void executeMultiRowInserts(SQLTemplate.ValuesClause valuesClause,
+	                                        int fromBatch,
+	                                        int toBatch,
+	                                        int maxRowsPerInsert,
+	                                        Map<String, PreparedStatement> statements,
+	                                        IntStream.Builder affectedRows,
+	                                        Class<T> keyClass,
+	                                        List<T> keys) throws SQLException {
+
+		for (int groupStart = fromBatch; groupStart < toBatch; groupStart += maxRowsPerInsert) {
+			int rows = Math.min(maxRowsPerInsert, toBatch - groupStart);
+
+			PreparedStatement ps = getStatement(statements, valuesClause.getSql(rows), keyClass != null);
+			applyParamBatches(ps, groupStart, groupStart + rows, false);
+
+			int affected = ps.executeUpdate();
+			int affectedPerRow = rows == 1 ? affected : affected == rows ? 1 : Statement.SUCCESS_NO_INFO;
+			for (int i = 0; i < rows; i++) {
+				affectedRows.add(affectedPerRow);
 			}
-			
-			List<T> keys = new ArrayList<>();
-			ResultSet rsKeys = ps.getGeneratedKeys();
-			
-			SQLConverter<T> converter = conversionRegistry.getConverter(targetKeyClass);
-			while (rsKeys.next()) {
-				keys.add(converter.read(rsKeys, 1, targetKeyClass));
+			if (keyClass != null) {
+				readKeys(ps, keyClass, keys);
 			}
+		}
+	}
 
-			return keys;
+	private PreparedStatement getStatement(Map<String, PreparedStatement> statements, String sql, boolean returnKeys) throws SQLException {
+		PreparedStatement ps = statements.get(sql);
+		if (ps == null) {
+			ps = session.conn.prepareStatement(sql, returnKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
+			statements.put(sql, ps);
 		}
-		catch (SQLException e) {
-			throw new SQLRuntimeException(e);
+		return ps;
+	}
+
+	/**
+	 * Determines the maximum number of rows the database of this query's session accepts in one multi-row insert, given
+	 * the number of parameters in each row
+	 */
+	private int getMaxRowsPerInsert(int paramsPerRow) throws SQLException {
+		String product = session.getDatabaseProductName();
+		if (product.contains("SQL Server")) {
+			return Math.max(1, Math.min(1000, 2000 / paramsPerRow)); // Hard limit of 2100 parameters and 1000 rows per VALUES clause
+		}
+		if (product.contains("MySQL") || product.contains("MariaDB")) {
+			return Math.max(1, MAX_PARAMS_PER_STATEMENT * 2 / paramsPerRow); // Protocol limit of 65535 placeholders
+		}
+		return Math.max(1, MAX_PARAMS_PER_STATEMENT / paramsPerRow);
+	}
+
+	private <T> void readKeys(PreparedStatement ps, Class<T> keyClass, List<T> keys) throws SQLException {
+		SQLConverter<T> converter = conversionRegistry.getConverter(keyClass);
+		try (ResultSet rsKeys = ps.getGeneratedKeys()) {
+			while (rsKeys.next()) {
+				keys.add(converter.read(rsKeys, 1, keyClass));
+			}
 		}
 	}
 
@@ -217,40 +721,108 @@ public class Query {
 	 * Queries which have more than 1 parameter batch will result in a call to addBatch() on the underlying PreparedStatement object for each batch.
 	 * Queries with only 1 parameter batch will simply apply each parameter in the batch and then return
 	 */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	private PreparedStatement prepareStatement(boolean returnKeys) {
+		String formattedSql = template.getFormattedSql();
+		return prepareStatement(() -> session.conn.prepareStatement(formattedSql, returnKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS));
+	}
+
+	/**
+	 * Same as {@link #prepareStatement(boolean)}, creating a statement for reading results with this query's result set
+	 * type, concurrency, fetch size and max rows settings
+	 */
+	private PreparedStatement prepareQueryStatement() {
+		return prepareStatement(() -> {
+			String formattedSql = template.getFormattedSql();
+			PreparedStatement ps;
+			if (streaming) {
+				ps = session.conn.prepareStatement(formattedSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			} else {
+				ps = session.conn.prepareStatement(formattedSql, resultSetType, resultSetConcurrency);
+			}
+			applyFetchSettings(ps);
+			return ps;
+		});
+	}
+
+	private PreparedStatement prepareStatement(Functions.SQLExceptionSupplier<PreparedStatement> statementFactory) {
 		
-		if (!currentParamBatch.isEmpty()) {
+		if (paramBatches.isCurrentBatchStarted()) {
 			finishBatch();
 		}
 		
-		if (paramBatches.isEmpty() && !paramLabel_paramIndex.isEmpty()) {
+		if (paramBatches.isEmpty() && template.getParamCount() > 0) {
 			throw new QueryStructureException("No parameters set");
 		}
 		
-		String formattedSql = getFormattedSQL();
-		PreparedStatement ps = Functions.runSQL(() -> session.conn.prepareStatement(formattedSql, returnKeys ? Statement.RETURN_GENERATED_KEYS : 0));
-			
-		paramBatches.forEach(paramBatch -> {
-
-			paramBatch.forEach((paramIndex, objParam) -> {
-				if (objParam == null) {
-					Functions.runSQL(() -> ps.setObject(paramIndex, null));
+		PreparedStatement ps = Functions.runSQL(statementFactory);
+		applyParamBatches(ps, 0, paramBatches.size(), paramBatches.size() > 1);
+		return ps;
+	}
+
+	/**
+	 * Applies this query's fetch size and max rows to the given statement. In streaming mode, the fetch size is chosen so
+	 * that the driver reads rows from a cursor as they are consumed instead of buffering the entire result:
+	 * <br/>
+	 * - MySQL / MariaDB: a fetch size of Integer.MIN_VALUE, which makes Connector/J stream rows one at a time<br/>
+	 * - Others (e.g. PostgreSQL): the configured fetch size, or {@value #DEFAULT_STREAMING_FETCH_SIZE} if none is set.
+	 * PostgreSQL also requires autocommit to be off, which is always the case inside a SQLPlus transaction
+	 */
+	private void applyFetchSettings(PreparedStatement ps) throws SQLException {
+		int effectiveFetchSize = fetchSize;
+		if (streaming) {
+			String product = session.getDatabaseProductName();
+			if (product.contains("MySQL") || product.contains("MariaDB")) {
+				effectiveFetchSize = Integer.MIN_VALUE;
+			}
+			else if (effectiveFetchSize <= 0) {
+				effectiveFetchSize = DEFAULT_STREAMING_FETCH_SIZE;
+			}
+		}
+		if (effectiveFetchSize != -1) {
+			ps.setFetchSize(effectiveFetchSize);
+		}
+		if (maxRows != -1) {
+			ps.setMaxRows(maxRows);
+		}
+	}
+
+	/**
+	 * Applies the finished parameter batches of this query in the given range to the given statement. If requested, each
+	 * batch is added to the statement's batch. Otherwise the batches are applied one after another to consecutive
+	 * parameter indices, as needed for a multi-row insert
+	 */
+	private void applyParamBatches(PreparedStatement ps, int fromBatch, int toBatch, boolean addBatch) {
+		int paramCount = template.getParamCount();
+		ParameterBinder[] paramBinders = getParamBinders();
+
+		try {
+			for (int batch = fromBatch; batch < toBatch; batch++) {
+
+				int paramOffset = addBatch ? 0 : (batch - fromBatch) * paramCount;
+				for (int i = 1; i <= paramCount; i++) {
+					paramBinders[i - 1].bind(ps, paramOffset + i, paramBatches.get(batch, i));
 				}
-				else {
-					SQLConverter converter = conversionRegistry.getConverter(objParam.getClass());
-					Functions.runSQL(() -> converter.write(ps, paramIndex, objParam));
+
+				if (addBatch) {
+					ps.addBatch();
 				}
-			});
-			
-			if (this.paramBatches.size() > 1) {
-				Functions.runSQL(() -> ps.addBatch());
 			}
-		});
-		
-		return ps;
+		}
+		catch (SQLException e) {
+			throw new SQLRuntimeException(e);
+		}
 	}
 	
+	private ParameterBinder[] getParamBinders() {
+		if (paramBinders == null) {
+			paramBinders = new ParameterBinder[template.getParamCount()];
+			for (int i = 0; i < paramBinders.length; i++) {
+				paramBinders[i] = new ParameterBinder(conversionRegistry);
+			}
+		}
+		return paramBinders;
+	}
+
 	/**
 	 * Binds the parameters in the given POJO class to the current parameter batch for his query
 	 */
@@ -263,20 +835,16 @@ public class Query {
 			klass = klass.getSuperclass();
 		}
 
-		boolean isCompleteBatch = true;
-		for (String paramLabel : paramLabel_paramIndex.keySet()) {
-			
-			Field mappedField;
-			try {
-				mappedField = klass.getDeclaredField(paramLabel);
-			} catch (NoSuchFieldException e) {
-				isCompleteBatch = false;
-				continue; // This parameter will need to be set manually
+		// Parameters with no matching field will need to be set manually
+		BindPlan bindPlan = template.getBindPlan(klass);
+		boolean isCompleteBatch = bindPlan.bind(o, paramBatches);
+		if (bindPlan != lastBindPlan) {
+			ParameterBinder[] paramBinders = getParamBinders();
+			for (ParameterBinder paramBinder : paramBinders) {
+				paramBinder.reset();
 			}
-			
-			Object member = Fields.get(mappedField, o);
-			Integer paramIndex = paramLabel_paramIndex.get(paramLabel);
-			currentParamBatch.put(paramIndex, member);
+			bindPlan.applyConversions(paramBinders, conversionRegistry);
+			lastBindPlan = bindPlan;
 		}
 
 		if (isCompleteBatch) {
@@ -291,63 +859,23 @@ public class Query {
 	 */
 	public Query finishBatch() {
 
-		List<String> missingParams = new ArrayList<>();
-		paramLabel_paramIndex.forEach((param, index) -> {
-			if (!currentParamBatch.containsKey(index)) {
-				missingParams.add(param);
-			}
-		});
-		if (!missingParams.isEmpty()) {
+		if (!paramBatches.isCurrentBatchComplete()) {
+			List<String> missingParams = new ArrayList<>();
+			template.getParamIndices().forEach((param, index) -> {
+				if (!paramBatches.isSet(index)) {
+					missingParams.add(param);
+				}
+			});
 			throw new QueryStructureException("Missing parameter values for the following parameters: " + missingParams);
 		}
 
-		paramBatches.add(currentParamBatch);
-
-		currentParamBatch = new LinkedHashMap<>();
+		paramBatches.finishBatch();
 		return this;
 	}
 	
-	/**
-	 * Formats this query's SQL by replacing all parameter labels with '?'
-	 */
-	private String getFormattedSQL() {
-		return sql.replaceAll(REGEX_PARAM, "?");
-	}
-
-	/**
-	 * Produces a mapping of parameter labels to the 1-based index at which they appear in the given query string.
-	 * 
-	 * For any '?' params, the key will be equal to the string value of the index. For example, for the query
-	 * 'select fieldA from table1 where fieldA = ? and fieldB = ?', a mapping would be produced with the keys
-	 * "1" and "2" and the values 1 and 2.
-	 */
-	private static Map<String, Integer> parseParams(String sql) {
-		
-		Map<String, Integer> paramLabel_index = new HashMap<>();
-		
-		int paramIndex = 0;
-		Matcher paramsMatcher = Pattern.compile(REGEX_PARAM).matcher(sql);
-		while (paramsMatcher.find()) {
-			paramIndex++;
-			String paramLabel = paramsMatcher.group();
-			if (paramLabel.equals("?")) {
-				paramLabel_index.put(paramIndex + "", paramIndex);
-			}
-			else {
-				paramLabel = paramLabel.substring(1);
-				if (paramLabel_index.containsKey(paramLabel)) {
-					throw new QueryStructureException("Duplicate parameter '" + paramLabel + "' in query:\n" + sql);
-				}
-				paramLabel_index.put(paramLabel, paramIndex);
-			}
-		}
-		
-		return paramLabel_index;
-	}
-
 	@Override
 	public int hashCode() {
-		return Objects.hash(getFormattedSQL(), getParameterValues());
+		return Objects.hash(template.getFormattedSql(), getParameterValues());
 	}
 
 	@Override
@@ -357,7 +885,7 @@ public class Query {
 		}
 		if (o instanceof Query) {
 			Query other = (Query) o;
-			return Objects.equals(getFormattedSQL(), other.getFormattedSQL()) &&
+			return Objects.equals(template.getFormattedSql(), other.template.getFormattedSql()) &&
 			       Objects.equals(getParameterValues(), other.getParameterValues());
 		}
 		return false;
@@ -368,11 +896,8 @@ public class Query {
 		return sql;
 	}
 
-	private Collection<Object> getParameterValues() {
-		Collection<Object> values = new ArrayList<>();
-		paramBatches.forEach(batch -> values.addAll(batch.values()));
-		values.addAll(currentParamBatch.values());
-		return values;
+	private List<Object> getParameterValues() {
+		return paramBatches.values();
 	}
 
 }
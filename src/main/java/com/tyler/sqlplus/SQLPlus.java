@@ -1,5 +1,7 @@
 package com.tyler.sqlplus;
 
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.conversion.SQLConverter;
 import com.tyler.sqlplus.exception.SQLRuntimeException;
 import com.tyler.sqlplus.function.Functions;
 import com.tyler.sqlplus.proxy.TransactionalService;
@@ -7,8 +9,10 @@ import com.tyler.sqlplus.proxy.TransactionalService;
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 /**
@@ -22,11 +26,36 @@ public class SQLPlus {
 	
 	private DataSource dataSource;
 
+	/** Fetch size applied to queries by default, or -1 to use the driver's default */
+	private int defaultFetchSize = -1;
+
+	/** Maximum number of rows returned by queries by default, or -1 to use the driver's default */
+	private int defaultMaxRows = -1;
+
+	private int defaultResultSetType = ResultSet.TYPE_FORWARD_ONLY;
+
+	private int defaultResultSetConcurrency = ResultSet.CONCUR_READ_ONLY;
+
+	/** Whether queries read their results through a streaming cursor by default. See {@link Query#setStreaming(boolean)} */
+	private boolean streamingByDefault = false;
+
+	/** Converters used by this instance's queries, or null to use the shared default registry */
+	private volatile ConversionRegistry conversionRegistry;
+
+	/** Whether POJO results are mapped by generated classes rather than reflectively. See {@link #setGeneratedRowMappers(boolean)} */
+	private boolean generatedRowMappers = false;
+
+	/** Number of query statements which were still open when their transaction ended */
+	private final LongAdder leakedCursors = new LongAdder();
+
 	@SuppressWarnings("unused")
 	private SQLPlus() {}
 	
+	/**
+	 * Creates a SQLPlus instance backed by a {@link PooledDataSource} with default pool settings
+	 */
 	public SQLPlus(String url, String user, String pass) {
-		this(new BasicDataSource(url, user, pass));
+		this(new PooledDataSource(url, user, pass));
 	}
 	
 	public SQLPlus(Supplier<Connection> connectionFactory) {
@@ -57,6 +86,116 @@ public class SQLPlus {
 		this.dataSource = dataSource;
 	}
 
+	public int getDefaultFetchSize() {
+		return defaultFetchSize;
+	}
+
+	public void setDefaultFetchSize(int defaultFetchSize) {
+		this.defaultFetchSize = defaultFetchSize;
+	}
+
+	public int getDefaultMaxRows() {
+		return defaultMaxRows;
+	}
+
+	public void setDefaultMaxRows(int defaultMaxRows) {
+		this.defaultMaxRows = defaultMaxRows;
+	}
+
+	public int getDefaultResultSetType() {
+		return defaultResultSetType;
+	}
+
+	public void setDefaultResultSetType(int defaultResultSetType) {
+		this.defaultResultSetType = defaultResultSetType;
+	}
+
+	public int getDefaultResultSetConcurrency() {
+		return defaultResultSetConcurrency;
+	}
+
+	public void setDefaultResultSetConcurrency(int defaultResultSetConcurrency) {
+		this.defaultResultSetConcurrency = defaultResultSetConcurrency;
+	}
+
+	public boolean isStreamingByDefault() {
+		return streamingByDefault;
+	}
+
+	public void setStreamingByDefault(boolean streamingByDefault) {
+		this.streamingByDefault = streamingByDefault;
+	}
+
+	/**
+	 * Returns the converters used by queries of this instance, which are the shared defaults unless customized
+	 */
+	public ConversionRegistry getConversionRegistry() {
+		ConversionRegistry registry = conversionRegistry;
+		return registry != null ? registry : ConversionRegistry.getDefault();
+	}
+
+	public void setConversionRegistry(ConversionRegistry conversionRegistry) {
+		this.conversionRegistry = conversionRegistry;
+	}
+
+	/**
+	 * Registers a converter for the given class with the queries of this instance only. The registry is copied, so queries
+	 * which are already running are not affected
+	 */
+	public synchronized <T> void registerConverter(Class<T> type, SQLConverter<T> converter) {
+		this.conversionRegistry = getConversionRegistry().withConverter(type, converter);
+	}
+
+	/**
+	 * Registers a converter under the given name, for fields annotated with {@link com.tyler.sqlplus.annotation.Conversion},
+	 * with the queries of this instance only
+	 */
+	public synchronized <T> void registerConverter(String name, SQLConverter<T> converter) {
+		this.conversionRegistry = getConversionRegistry().withConverter(name, converter);
+	}
+
+	public boolean isGeneratedRowMappers() {
+		return generatedRowMappers;
+	}
+
+	/**
+	 * Sets whether POJO results are mapped by classes generated for each result class and column layout, which set fields
+	 * directly instead of through reflection. Generating a mapper has a one-time cost per layout, so this pays off for
+	 * large or frequently run queries. Classes which cannot be mapped by generated code are mapped reflectively
+	 */
+	public void setGeneratedRowMappers(boolean generatedRowMappers) {
+		this.generatedRowMappers = generatedRowMappers;
+	}
+
+	/**
+	 * Returns the number of query statements which were left open (by streams which were neither read to the end nor
+	 * closed) and had to be closed when their transaction ended. A growing count points to streams which should be
+	 * closed with try-with-resources
+	 */
+	public long getLeakedCursorCount() {
+		return leakedCursors.sum();
+	}
+
+	void recordLeakedCursors(int count) {
+		leakedCursors.add(count);
+	}
+
+	/**
+	 * Creates a scan over the results of the given query which reads them one page at a time, each page in its own
+	 * transaction. See {@link KeysetScan}
+	 */
+	public <T> KeysetScan<T> keysetScan(String sql, Class<T> resultClass) {
+		return new KeysetScan<>(this, sql, resultClass);
+	}
+
+	/**
+	 * Creates a scan over the results of the given query which reads ranges of a partition column in parallel, each on
+	 * its own thread and connection. See {@link PartitionedScan}
+	 */
+	public <T> PartitionedScan<T> partitionedScan(String sql, Class<T> resultClass) {
+		return new PartitionedScan<>(this, sql, resultClass);
+	}
+
 	public <T> T createService(Class<T> klass) throws InstantiationException, IllegalAccessException {
 		return TransactionalService.create(klass, this);
 	}
@@ -108,18 +247,20 @@ public class SQLPlus {
 		Session session = null;
 		T result;
 		try {
-			session = new Session(dataSource.getConnection());
+			session = new Session(dataSource.getConnection(), this);
 			if (isolation != -1) {
 				session.conn.setTransactionIsolation(isolation);
 			}
 			session.conn.setAutoCommit(false);
 			CURRENT_THREAD_SESSION.set(session);
 			result = action.apply(session);
-			session.conn.commit();
+			session.commit();
 		}
 		catch (Exception e) {
 			CURRENT_THREAD_SESSION.remove();
-			session.rollback();
+			if (session != null) {
+				session.rollback();
+			}
 			throw new SQLRuntimeException(e);
 		}
 
@@ -0,0 +1,384 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.exception.QueryStructureException;
+import com.tyler.sqlplus.utility.ConcurrentLRUCache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The parsed form of a raw SQL string: the SQL with all parameter labels replaced by '?', and the mapping of parameter
+ * labels to their 1-based indices.
+ * <br/><br/>
+ * Templates are immutable and shared between all queries with the same raw SQL through a bounded, least-recently-used
+ * cache, so a given SQL string is only parsed the first time it is seen
+ */
+final class SQLTemplate {
+
+	/** Maximum number of distinct SQL strings whose parsed templates are retained */
+	static final int CACHE_SIZE = 2048;
+
+	private static final ConcurrentLRUCache<String, SQLTemplate> CACHE = new ConcurrentLRUCache<>(CACHE_SIZE);
+
+	private static final ValuesClause NOT_INSERT = new ValuesClause(null, 0, 0);
+
+	private final String sql;
+
+	private final String formattedSql;
+
+	/**
+	 * A mapping of parameter labels to their corresponding ordinal indices in the SQL, in the order in which they appear.
+	 * <br/>
+	 * For any '?' params, the key will be equal to the string value of the index. For example, for the query
+	 * 'select fieldA from table1 where fieldA = ? and fieldB = ?', a mapping would be produced with the keys
+	 * "1" and "2" and the values 1 and 2.
+	 */
+	private final Map<String, Integer> paramLabel_paramIndex;
+
+	/**
+	 * The VALUES tuple of this template if it is a single-row INSERT which can be rewritten to insert multiple rows at
+	 * once. Determined on first use, and set to {@link #NOT_INSERT} if the SQL cannot be rewritten
+	 */
+	private volatile ValuesClause valuesClause;
+
+	/** Plans for binding objects of each class to this template's parameters, created the first time each class is bound */
+	private final Map<Class<?>, BindPlan> bindPlans = new ConcurrentHashMap<>();
+
+	private SQLTemplate(String sql, String formattedSql, Map<String, Integer> paramLabel_paramIndex) {
+		this.sql = sql;
+		this.formattedSql = formattedSql;
+		this.paramLabel_paramIndex = Collections.unmodifiableMap(paramLabel_paramIndex);
+	}
+
+	/**
+	 * Retrieves the template for the given raw SQL, parsing it if it has not been seen recently
+	 * @throws QueryStructureException If the SQL contains the same parameter label more than once
+	 */
+	static SQLTemplate of(String sql) {
+		return CACHE.computeIfAbsent(sql, SQLTemplate::parse);
+	}
+
+	static ConcurrentLRUCache<String, SQLTemplate> cache() {
+		return CACHE;
+	}
+
+	/**
+	 * Scans the given SQL once, collecting parameter labels and building the formatted SQL as it goes.
+	 * <br/><br/>
+	 * A parameter is either a '?' or a ':' followed by a label made up of letters, digits and underscores. Text inside
+	 * quoted strings ('...', with '' as an escaped quote), quoted identifiers ("..." and `...`), line comments (--) and
+	 * block comments is copied through untouched, as are '::' type casts
+	 */
+	private static SQLTemplate parse(String sql) {
+
+		Map<String, Integer> paramLabel_index = new LinkedHashMap<>();
+		StringBuilder formatted = null;
+
+		int length = sql.length();
+		int copiedUpTo = 0;
+		int paramIndex = 0;
+		int pos = 0;
+		while (pos < length) {
+			char c = sql.charAt(pos);
+			switch (c) {
+				case '\'':
+				case '"':
+				case '`':
+					pos = skipQuoted(sql, pos, c);
+					break;
+				case '-':
+					pos = sql.startsWith("--", pos) ? skipLineComment(sql, pos) : pos + 1;
+					break;
+				case '/':
+					pos = sql.startsWith("/*", pos) ? skipBlockComment(sql, pos) : pos + 1;
+					break;
+				case '?':
+					paramIndex++;
+					paramLabel_index.put(paramIndex + "", paramIndex);
+					pos++;
+					break;
+				case ':':
+					if (pos + 1 < length && sql.charAt(pos + 1) == ':') {
+						pos += 2; // Type cast such as '::text'
+						break;
+					}
+					int labelEnd = pos + 1;
+					while (labelEnd < length && isLabelChar(sql.charAt(labelEnd))) {
+						labelEnd++;
+					}
+					if (labelEnd == pos + 1) {
+						pos++; // Lone colon, not a parameter
+						break;
+					}
+					String paramLabel = sql.substring(pos + 1, labelEnd);
+					if (paramLabel_index.containsKey(paramLabel)) {
+						throw new QueryStructureException("Duplicate parameter '" + paramLabel + "' in query:\n" + sql);
+					}
+					paramIndex++;
+					paramLabel_index.put(paramLabel, paramIndex);
+					if (formatted == null) {
+						formatted = new StringBuilder(length);
+					}
+					formatted.append(sql, copiedUpTo, pos).append('?');
+					copiedUpTo = pos = labelEnd;
+					break;
+				default:
+					pos++;
+			}
+		}
+
+		String formattedSql;
+		if (formatted == null) {
+			formattedSql = sql; // Nothing but '?' parameters, if any, so the SQL is already in its final form
+		}
+		else {
+			formattedSql = formatted.append(sql, copiedUpTo, length).toString();
+		}
+		return new SQLTemplate(sql, formattedSql, paramLabel_index);
+	}
+
+	/**
+	 * Returns the position just past the closing quote of the quoted section starting at the given position. A doubled
+	 * quote character inside the section is treated as an escaped quote
+	 */
+	private static int skipQuoted(String sql, int openPos, char quote) {
+		int pos = openPos + 1;
+		int length = sql.length();
+		while (pos < length) {
+			if (sql.charAt(pos) == quote) {
+				if (pos + 1 < length && sql.charAt(pos + 1) == quote) {
+					pos += 2;
+					continue;
+				}
+				return pos + 1;
+			}
+			pos++;
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the VALUES tuple of this template if it is an 'INSERT ... VALUES (...)' statement with a single tuple holding
+	 * all of its parameters, or null if the SQL cannot be rewritten into a multi-row insert
+	 */
+	ValuesClause getValuesClause() {
+		ValuesClause clause = valuesClause;
+		if (clause == null) {
+			clause = findValuesClause();
+			valuesClause = clause;
+		}
+		return clause == NOT_INSERT ? null : clause;
+	}
+
+	private ValuesClause findValuesClause() {
+
+		String sql = formattedSql;
+		int pos = skipWhitespaceAndComments(sql, 0);
+		if (getParamCount() == 0 || !isKeywordAt(sql, pos, "insert")) {
+			return NOT_INSERT;
+		}
+
+		// Find the VALUES keyword outside of any parentheses, e.g. not within a column list
+		int length = sql.length();
+		int depth = 0;
+		int valuesEnd = -1;
+		while (pos < length && valuesEnd < 0) {
+			char c = sql.charAt(pos);
+			if (c == '\'' || c == '"' || c == '`') {
+				pos = skipQuoted(sql, pos, c);
+			}
+			else if (sql.startsWith("--", pos)) {
+				pos = skipLineComment(sql, pos);
+			}
+			else if (sql.startsWith("/*", pos)) {
+				pos = skipBlockComment(sql, pos);
+			}
+			else if (c == '?') {
+				return NOT_INSERT; // Parameter ahead of the VALUES tuple
+			}
+			else {
+				if (c == '(') {
+					depth++;
+				}
+				else if (c == ')') {
+					depth--;
+				}
+				else if (depth == 0 && isKeywordAt(sql, pos, "values")) {
+					valuesEnd = pos + "values".length();
+				}
+				pos++;
+			}
+		}
+		if (valuesEnd < 0) {
+			return NOT_INSERT;
+		}
+
+		int tupleStart = skipWhitespaceAndComments(sql, valuesEnd);
+		if (tupleStart >= length || sql.charAt(tupleStart) != '(') {
+			return NOT_INSERT;
+		}
+
+		// Find the end of the tuple, counting the parameters inside it
+		int tupleParams = 0;
+		depth = 0;
+		pos = tupleStart;
+		int tupleEnd = -1;
+		while (pos < length && tupleEnd < 0) {
+			char c = sql.charAt(pos);
+			if (c == '\'' || c == '"' || c == '`') {
+				pos = skipQuoted(sql, pos, c);
+			}
+			else if (sql.startsWith("--", pos)) {
+				pos = skipLineComment(sql, pos);
+			}
+			else if (sql.startsWith("/*", pos)) {
+				pos = skipBlockComment(sql, pos);
+			}
+			else {
+				if (c == '?') {
+					tupleParams++;
+				}
+				else if (c == '(') {
+					depth++;
+				}
+				else if (c == ')' && --depth == 0) {
+					tupleEnd = pos + 1;
+				}
+				pos++;
+			}
+		}
+
+		// Every parameter must be in the tuple, and the tuple must be the only one
+		if (tupleEnd < 0 || tupleParams != getParamCount()) {
+			return NOT_INSERT;
+		}
+		int afterTuple = skipWhitespaceAndComments(sql, tupleEnd);
+		if (afterTuple < length && sql.charAt(afterTuple) == ',') {
+			return NOT_INSERT;
+		}
+
+		return new ValuesClause(sql, tupleStart, tupleEnd);
+	}
+
+	private static int skipWhitespaceAndComments(String sql, int pos) {
+		int length = sql.length();
+		while (pos < length) {
+			if (Character.isWhitespace(sql.charAt(pos))) {
+				pos++;
+			}
+			else if (sql.startsWith("--", pos)) {
+				pos = skipLineComment(sql, pos);
+			}
+			else if (sql.startsWith("/*", pos)) {
+				pos = skipBlockComment(sql, pos);
+			}
+			else {
+				break;
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * Determines if the given keyword, in any case, appears at the given position as a whole word
+	 */
+	private static boolean isKeywordAt(String sql, int pos, String keyword) {
+		int end = pos + keyword.length();
+		return sql.regionMatches(true, pos, keyword, 0, keyword.length()) &&
+		       (pos == 0 || !isLabelChar(sql.charAt(pos - 1))) &&
+		       (end == sql.length() || !isLabelChar(sql.charAt(end)));
+	}
+
+	private static int skipLineComment(String sql, int startPos) {
+		int newline = sql.indexOf('\n', startPos);
+		return newline < 0 ? sql.length() : newline + 1;
+	}
+
+	private static int skipBlockComment(String sql, int startPos) {
+		int end = sql.indexOf("*/", startPos + 2);
+		return end < 0 ? sql.length() : end + 2;
+	}
+
+	private static boolean isLabelChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
+
+	String getSql() {
+		return sql;
+	}
+
+	String getFormattedSql() {
+		return formattedSql;
+	}
+
+	int getParamCount() {
+		return paramLabel_paramIndex.size();
+	}
+
+	/**
+	 * Returns the 1-based index of the given parameter label, or null if this template has no such parameter
+	 */
+	Integer getParamIndex(String paramLabel) {
+		return paramLabel_paramIndex.get(paramLabel);
+	}
+
+	/**
+	 * Retrieves the plan for binding objects of the given class to this template's parameters
+	 */
+	BindPlan getBindPlan(Class<?> klass) {
+		return bindPlans.computeIfAbsent(klass, k -> BindPlan.create(paramLabel_paramIndex, k));
+	}
+
+	Map<String, Integer> getParamIndices() {
+		return paramLabel_paramIndex;
+	}
+
+	/**
+	 * The VALUES tuple of a single-row INSERT statement, from which statements inserting several rows at once are built
+	 */
+	static final class ValuesClause {
+
+		private final String prefix;
+		private final String tuple;
+		private final String suffix;
+
+		/** Upper bound on the number of distinct row counts whose statements are kept */
+		private static final int MAX_CACHED_SIZES = 8;
+
+		/** Multi-row statements by number of rows. Batched inserts mostly need one full size plus the odd remainder */
+		private final Map<Integer, String> sql_byRows = new ConcurrentHashMap<>();
+
+		private ValuesClause(String sql, int tupleStart, int tupleEnd) {
+			this.prefix = sql == null ? null : sql.substring(0, tupleEnd);
+			this.tuple = sql == null ? null : sql.substring(tupleStart, tupleEnd);
+			this.suffix = sql == null ? null : sql.substring(tupleEnd);
+		}
+
+		/**
+		 * Returns the SQL for inserting the given number of rows in one statement
+		 */
+		String getSql(int rows) {
+			String sql = sql_byRows.get(rows);
+			if (sql == null) {
+				sql = buildSql(rows);
+				if (sql_byRows.size() < MAX_CACHED_SIZES) {
+					sql_byRows.putIfAbsent(rows, sql);
+				}
+			}
+			return sql;
+		}
+
+		private String buildSql(int rows) {
+			StringBuilder sql = new StringBuilder(prefix.length() + suffix.length() + (tuple.length() + 2) * (rows - 1));
+			sql.append(prefix);
+			for (int i = 1; i < rows; i++) {
+				sql.append(", ").append(tuple);
+			}
+			return sql.append(suffix).toString();
+		}
+
+	}
+
+}
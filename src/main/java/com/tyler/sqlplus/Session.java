@@ -7,6 +7,8 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
 
 /**
  * Represents an individual unit of work within the SqlPlus environment
@@ -18,9 +20,22 @@ public class Session implements Closeable {
 	 * JDBC connection object should ONLY every be used by the Query and SQLPlus classes
 	 */
 	Connection conn;
+
+	/** The SQLPlus instance which opened this session, supplying default settings for its queries. May be null */
+	final SQLPlus sqlPlus;
+
+	/** Product name of the database this session is connected to, looked up on first use */
+	private String databaseProductName;
+
+	/**
+	 * Statements whose results are still being read, each mapped to the action which closes its results (or null to close
+	 * the statement directly). Any left open when the transaction ends are closed by the session
+	 */
+	private final Map<Statement, Runnable> openStatements = new IdentityHashMap<>();
 	
-	Session(Connection conn) {
+	Session(Connection conn, SQLPlus sqlPlus) {
 		this.conn = conn;
+		this.sqlPlus = sqlPlus;
 	}
 
 	/**
@@ -55,6 +70,75 @@ public class Session implements Closeable {
 		}
 	}
 
+	/**
+	 * Returns the product name of the database this session is connected to, used to apply driver-specific settings
+	 */
+	String getDatabaseProductName() throws SQLException {
+		if (databaseProductName == null) {
+			databaseProductName = conn.getMetaData().getDatabaseProductName();
+		}
+		return databaseProductName;
+	}
+
+	/**
+	 * Registers a statement whose results are being streamed, so it can be closed when the transaction ends if the
+	 * reader never closes it
+	 */
+	synchronized void trackOpenStatement(Statement statement) {
+		openStatements.put(statement, null);
+	}
+
+	/**
+	 * Sets how the results of a tracked statement are closed if they are left open, such as by closing the stream reading
+	 * them so that a background reader thread is stopped before the statement is closed. Has no effect if the statement
+	 * is no longer tracked
+	 */
+	synchronized void setOpenStatementCloser(Statement statement, Runnable closer) {
+		openStatements.replace(statement, closer);
+	}
+
+	synchronized void untrackOpenStatement(Statement statement) {
+		openStatements.remove(statement);
+	}
+
+	/**
+	 * Closes any statements whose results were never fully read or closed, counting each one as a leaked cursor
+	 */
+	void closeOpenStatements() {
+		Map<Statement, Runnable> leaked;
+		synchronized (this) {
+			if (openStatements.isEmpty()) {
+				return;
+			}
+			leaked = new IdentityHashMap<>(openStatements);
+			openStatements.clear();
+		}
+		for (Map.Entry<Statement, Runnable> entry : leaked.entrySet()) {
+			try {
+				if (entry.getValue() != null) {
+					entry.getValue().run();
+				}
+				else {
+					entry.getKey().close();
+				}
+			}
+			catch (SQLException | RuntimeException e) {
+				// The statement is being discarded along with the transaction, nothing else can be done with it
+			}
+		}
+		if (sqlPlus != null) {
+			sqlPlus.recordLeakedCursors(leaked.size());
+		}
+	}
+
+	/**
+	 * Commits the current transaction, first closing any statements whose results were left open
+	 */
+	void commit() throws SQLException {
+		closeOpenStatements();
+		conn.commit();
+	}
+
 	public boolean isOpen() {
 		try {
 			return !conn.isClosed();
@@ -64,14 +148,26 @@ public class Session implements Closeable {
 		}
 	}
 
+	/**
+	 * Rolls back the current transaction and closes the connection. The connection is closed even if the rollback fails,
+	 * so that pooled connections are always handed back to their pool
+	 */
 	void rollback() {
 		try {
+			closeOpenStatements();
 			conn.rollback();
-			conn.close();
 		}
 		catch (SQLException e) {
 			throw new SQLRuntimeException(e);
 		}
+		finally {
+			try {
+				conn.close();
+			}
+			catch (SQLException e) {
+				// The rollback failure (if any) is the more useful error to report
+			}
+		}
 	}
 
 	private void assertOpen() {
@@ -0,0 +1,361 @@
+package com.tyler.sqlplus;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An LRU cache of prepared statements belonging to a single pooled connection.
+ * <br/><br/>
+ * Statements are keyed by their SQL along with the generated-keys flag and result set type / concurrency they were
+ * prepared with. Closing a statement handed out by this cache does not close the underlying statement; instead its
+ * parameters, batch and any statement-level settings are reset and it is made available for the next caller which
+ * prepares the same SQL. If a cached statement is already checked out when the same SQL is prepared again (for instance
+ * by a nested query while iterating over results), a plain uncached statement is returned instead
+ */
+class StatementCache {
+
+	private static final int UNSPECIFIED = Integer.MIN_VALUE;
+
+	/** Statement methods which change settings that must not leak to the next user of a cached statement */
+	private static final Set<String> SETTINGS_METHODS = new HashSet<>(Arrays.asList(
+		"setFetchSize", "setMaxRows", "setLargeMaxRows", "setQueryTimeout", "setFetchDirection", "setMaxFieldSize"
+	));
+
+	/**
+	 * Hit / miss / eviction counters, shared by all statement caches of a pool
+	 */
+	static class Counters {
+		final LongAdder hits = new LongAdder();
+		final LongAdder misses = new LongAdder();
+		final LongAdder evictions = new LongAdder();
+	}
+
+	private final Connection connection;
+	private final Counters counters;
+	private final LinkedHashMap<Key, CachedStatement> statements;
+
+	StatementCache(Connection connection, int maxSize, Counters counters) {
+		this.connection = connection;
+		this.counters = counters;
+		this.statements = new LinkedHashMap<Key, CachedStatement>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, CachedStatement> eldest) {
+				if (size() <= maxSize) {
+					return false;
+				}
+				counters.evictions.increment();
+				evict(eldest.getValue());
+				return true;
+			}
+
+		};
+	}
+
+	/**
+	 * Determines if a call to the given Connection.prepareStatement overload can be served from the cache
+	 */
+	static boolean isCacheable(Method prepareMethod) {
+		Class<?>[] paramTypes = prepareMethod.getParameterTypes();
+		switch (paramTypes.length) {
+			case 1:
+				return true;
+			case 2:
+				return paramTypes[1] == int.class; // Excludes the column index / column name array overloads
+			case 3:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Obtains a prepared statement for the given arguments of one of the cacheable Connection.prepareStatement overloads
+	 * @param owner The connection handle through which the statement was requested
+	 */
+	PreparedStatement prepare(Connection owner, Object[] prepareArgs) throws SQLException {
+
+		Key key = Key.of(prepareArgs);
+
+		CachedStatement cached;
+		synchronized (this) {
+			cached = statements.get(key);
+			if (cached != null && !cached.inUse) {
+				cached.inUse = true;
+				counters.hits.increment();
+				return cached.checkout(owner);
+			}
+		}
+
+		counters.misses.increment();
+		PreparedStatement ps = key.prepare(connection);
+		if (cached != null) {
+			return ps; // The cached statement for this SQL is busy, so hand out a one-off statement
+		}
+
+		CachedStatement newEntry = new CachedStatement(ps);
+		newEntry.inUse = true;
+		synchronized (this) {
+			CachedStatement replaced = statements.put(key, newEntry);
+			if (replaced != null) {
+				evict(replaced);
+			}
+		}
+		return newEntry.checkout(owner);
+	}
+
+	/**
+	 * Returns any statements which are still checked out back to the cache. Called when the owning connection is
+	 * returned to its pool, after which handles to those statements can no longer be used
+	 */
+	void releaseAll() {
+		List<CachedStatement> checkedOut = new ArrayList<>();
+		synchronized (this) {
+			for (CachedStatement cached : statements.values()) {
+				if (cached.inUse && cached.handle != null) {
+					checkedOut.add(cached);
+				}
+			}
+		}
+		for (CachedStatement cached : checkedOut) {
+			cached.handle.release();
+		}
+	}
+
+	private void evict(CachedStatement cached) {
+		cached.isEvicted = true;
+		if (!cached.inUse) {
+			closeQuietly(cached.statement);
+		}
+	}
+
+	private void checkin(CachedStatement cached) {
+
+		boolean isReusable = true;
+		try {
+			ResultSet openResults = cached.statement.getResultSet();
+			if (openResults != null) {
+				openResults.close();
+			}
+			cached.statement.clearParameters();
+			cached.statement.clearBatch();
+			if (cached.hasChangedSettings) {
+				cached.restoreSettings();
+			}
+		}
+		catch (SQLException | RuntimeException e) {
+			isReusable = false; // Includes drivers throwing UnsupportedOperationException for optional JDBC methods
+		}
+
+		synchronized (this) {
+			cached.inUse = false;
+			cached.handle = null;
+			if (!isReusable && !cached.isEvicted) {
+				statements.values().remove(cached);
+				cached.isEvicted = true;
+			}
+			if (cached.isEvicted) {
+				closeQuietly(cached.statement);
+			}
+		}
+	}
+
+	synchronized int size() {
+		return statements.size();
+	}
+
+	private static void closeQuietly(PreparedStatement ps) {
+		try {
+			ps.close();
+		}
+		catch (SQLException e) {
+			// Statement is being discarded, nothing else can be done with it
+		}
+	}
+
+	/**
+	 * Identifies a cached statement by its SQL and the options it was prepared with
+	 */
+	private static class Key {
+
+		private final String sql;
+		private final int autoGeneratedKeys;
+		private final int resultSetType;
+		private final int resultSetConcurrency;
+
+		private Key(String sql, int autoGeneratedKeys, int resultSetType, int resultSetConcurrency) {
+			this.sql = sql;
+			this.autoGeneratedKeys = autoGeneratedKeys;
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+		}
+
+		static Key of(Object[] prepareArgs) {
+			String sql = (String) prepareArgs[0];
+			switch (prepareArgs.length) {
+				case 2:
+					return new Key(sql, (Integer) prepareArgs[1], UNSPECIFIED, UNSPECIFIED);
+				case 3:
+					return new Key(sql, UNSPECIFIED, (Integer) prepareArgs[1], (Integer) prepareArgs[2]);
+				default:
+					return new Key(sql, UNSPECIFIED, UNSPECIFIED, UNSPECIFIED);
+			}
+		}
+
+		PreparedStatement prepare(Connection conn) throws SQLException {
+			if (autoGeneratedKeys != UNSPECIFIED) {
+				return conn.prepareStatement(sql, autoGeneratedKeys);
+			}
+			else if (resultSetType != UNSPECIFIED) {
+				return conn.prepareStatement(sql, resultSetType, resultSetConcurrency);
+			}
+			else {
+				return conn.prepareStatement(sql);
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(sql, autoGeneratedKeys, resultSetType, resultSetConcurrency);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return sql.equals(other.sql) &&
+			       autoGeneratedKeys == other.autoGeneratedKeys &&
+			       resultSetType == other.resultSetType &&
+			       resultSetConcurrency == other.resultSetConcurrency;
+		}
+
+	}
+
+	private class CachedStatement {
+
+		private final PreparedStatement statement;
+		private final int defaultFetchSize;
+		private final int defaultMaxRows;
+		private final int defaultQueryTimeout;
+		private final int defaultFetchDirection;
+		private final int defaultMaxFieldSize;
+
+		private boolean inUse;
+		private boolean isEvicted;
+		private boolean hasChangedSettings;
+
+		/** Whether max rows was set with setLargeMaxRows, which not all drivers implement, so it must be restored with it */
+		private boolean hasChangedLargeMaxRows;
+		private StatementHandle handle;
+
+		CachedStatement(PreparedStatement statement) throws SQLException {
+			this.statement = statement;
+			this.defaultFetchSize = statement.getFetchSize();
+			this.defaultMaxRows = statement.getMaxRows();
+			this.defaultQueryTimeout = statement.getQueryTimeout();
+			this.defaultFetchDirection = statement.getFetchDirection();
+			this.defaultMaxFieldSize = statement.getMaxFieldSize();
+		}
+
+		PreparedStatement checkout(Connection owner) {
+			handle = new StatementHandle(this, owner);
+			return (PreparedStatement) Proxy.newProxyInstance(
+				StatementCache.class.getClassLoader(),
+				new Class<?>[]{ PreparedStatement.class },
+				handle
+			);
+		}
+
+		/**
+		 * Restores the settings the statement was created with. Max rows is restored first, since some drivers (e.g. H2)
+		 * reject a fetch size larger than the current max rows
+		 */
+		void restoreSettings() throws SQLException {
+			if (hasChangedLargeMaxRows) {
+				statement.setLargeMaxRows(defaultMaxRows);
+			} else {
+				statement.setMaxRows(defaultMaxRows);
+			}
+			statement.setFetchSize(defaultFetchSize);
+			statement.setQueryTimeout(defaultQueryTimeout);
+			statement.setFetchDirection(defaultFetchDirection);
+			statement.setMaxFieldSize(defaultMaxFieldSize);
+			hasChangedSettings = false;
+			hasChangedLargeMaxRows = false;
+		}
+
+	}
+
+	/**
+	 * The statement object handed out to callers. Closing it checks the statement back into the cache
+	 */
+	private class StatementHandle implements InvocationHandler {
+
+		private final CachedStatement cached;
+		private final Connection owner;
+		private boolean isReturned;
+
+		StatementHandle(CachedStatement cached, Connection owner) {
+			this.cached = cached;
+			this.owner = owner;
+		}
+
+		synchronized void release() {
+			if (!isReturned) {
+				isReturned = true;
+				checkin(cached);
+			}
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					release();
+					return null;
+				case "isClosed":
+					return isReturned || cached.statement.isClosed();
+				case "getConnection":
+					return owner;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Cached" + cached.statement;
+			}
+
+			if (isReturned) {
+				throw new SQLException("Statement has already been closed");
+			}
+			if (SETTINGS_METHODS.contains(method.getName())) {
+				cached.hasChangedSettings = true;
+				if (method.getName().equals("setLargeMaxRows")) {
+					cached.hasChangedLargeMaxRows = true;
+				}
+			}
+
+			try {
+				return method.invoke(cached.statement, args);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+	}
+
+}
@@ -9,8 +9,41 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface SQLQuery {
 
+	enum Streaming { DEFAULT, ON, OFF }
+
 	int isolation() default -1;
 
 	String value();
-	
+
+	/**
+	 * Fetch size hint for the query, or -1 to use the SQLPlus default
+	 */
+	int fetchSize() default -1;
+
+	/**
+	 * Maximum number of rows to return, or -1 to use the SQLPlus default
+	 */
+	int maxRows() default -1;
+
+	/**
+	 * One of the {@link java.sql.ResultSet} TYPE_ constants, or -1 to use the SQLPlus default
+	 */
+	int resultSetType() default -1;
+
+	/**
+	 * One of the {@link java.sql.ResultSet} CONCUR_ constants, or -1 to use the SQLPlus default
+	 */
+	int resultSetConcurrency() default -1;
+
+	/**
+	 * Whether results should be read through a streaming cursor rather than buffered by the driver. DEFAULT uses the
+	 * SQLPlus default, while ON and OFF override it either way
+	 */
+	Streaming streaming() default Streaming.DEFAULT;
+
+	/**
+	 * Number of rows to read ahead on a background thread while results are mapped, or 0 to read rows only as they are mapped
+	 */
+	int prefetch() default 0;
+
 }
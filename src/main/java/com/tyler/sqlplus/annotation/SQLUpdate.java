@@ -29,4 +29,14 @@ public @interface SQLUpdate {
 	 */
 	String keyQuery() default "";
 
+	/**
+	 * Number of bound objects after which the batched update is sent to the database. 0 sends all of them at once
+	 */
+	int batchChunkSize() default 0;
+
+	/**
+	 * Whether a batched single-row insert should be sent as multi-row 'INSERT ... VALUES (...), (...)' statements
+	 */
+	boolean rewriteBatchedInserts() default false;
+
 }
@@ -0,0 +1,14 @@
+package com.tyler.sqlplus.conversion;
+
+/**
+ * An enum whose constants are stored as a fixed integer code rather than by name or ordinal. Fields of coded enum types
+ * annotated with @Conversion({@link ConversionRegistry#ENUM_CODE}) are written as their code and read back by looking
+ * the code up, so constants can be renamed or reordered without migrating stored data.
+ * <br/>
+ * Each constant of an enum must have a distinct code
+ */
+public interface CodedEnum {
+
+	int getCode();
+
+}
@@ -4,8 +4,6 @@ import com.tyler.sqlplus.annotation.Conversion;
 import com.tyler.sqlplus.exception.ConversionException;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.*;
@@ -13,16 +11,36 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * An immutable set of named {@link SQLConverter}s, keyed by the name of the class they convert or by a custom name for
+ * use with {@link Conversion}.
+ * <br/><br/>
+ * Registries are safe to share between threads, and the default registry is a single shared instance, so creating a
+ * query allocates nothing for conversion. The converter for each class is resolved once per registry and memoized.
+ * Registries are customized by copying: {@link #withConverter(Class, SQLConverter)} returns a new registry and leaves
+ * the original untouched
+ */
 public class ConversionRegistry {
 
-	private static final Map<String, SQLConverter> DEFAULT_REGISTRY = new LinkedHashMap<>();
+	/** Name of the converter which stores enums by ordinal, for use with {@link Conversion} */
+	public static final String ENUM_ORDINAL = "enum_ordinal";
+
+	/** Name of the converter which stores {@link CodedEnum}s by code, for use with {@link Conversion} */
+	public static final String ENUM_CODE = "enum_code";
+
+	/** Converters which new registries start with, in registration order. Guarded by the class lock */
+	private static final Map<String, SQLConverter<?>> DEFAULT_REGISTRY = new LinkedHashMap<>();
+
+	/** Shared registry of the default converters, or null if it must be rebuilt after a default converter was registered */
+	private static volatile ConversionRegistry defaultInstance;
 	static {
 
-		registerDefaultConverter(byte.class, new SQLConverter<Byte>() {
+		registerDefaultConverter(byte.class, new IndexedSQLConverter<Byte>() {
 
 			@Override
 			public Class<Byte> getConvertedClass() {
@@ -30,7 +48,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Byte read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Byte read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getByte(column);
 			}
 
@@ -41,7 +59,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Byte.class, new SQLConverter<Byte>() {
+		registerDefaultConverter(Byte.class, new IndexedSQLConverter<Byte>() {
 
 			@Override
 			public Class<Byte> getConvertedClass() {
@@ -49,7 +67,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Byte read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Byte read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				byte byteVal = rs.getByte(column);
 				return rs.wasNull() ? null : byteVal;
 			}
@@ -65,7 +83,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Integer.class, new SQLConverter<Integer>() {
+		registerDefaultConverter(Integer.class, new IndexedSQLConverter<Integer>() {
 
 			@Override
 			public Class<Integer> getConvertedClass() {
@@ -73,7 +91,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Integer read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Integer read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				int obj = rs.getInt(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -89,7 +107,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(int.class, new SQLConverter<Integer>() {
+		registerDefaultConverter(int.class, new IndexedSQLConverter<Integer>() {
 
 			@Override
 			public Class<Integer> getConvertedClass() {
@@ -97,7 +115,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Integer read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Integer read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getInt(column);
 			}
 
@@ -108,7 +126,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Integer.class, new SQLConverter<Integer>() {
+		registerDefaultConverter(Integer.class, new IndexedSQLConverter<Integer>() {
 
 			@Override
 			public Class<Integer> getConvertedClass() {
@@ -116,7 +134,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Integer read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Integer read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				int obj = rs.getInt(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -132,7 +150,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(short.class, new SQLConverter<Short>() {
+		registerDefaultConverter(short.class, new IndexedSQLConverter<Short>() {
 
 			@Override
 			public Class<Short> getConvertedClass() {
@@ -140,7 +158,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Short read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Short read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getShort(column);
 			}
 
@@ -151,7 +169,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Short.class, new SQLConverter<Short>() {
+		registerDefaultConverter(Short.class, new IndexedSQLConverter<Short>() {
 
 			@Override
 			public Class<Short> getConvertedClass() {
@@ -159,7 +177,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Short read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Short read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				short obj = rs.getShort(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -175,7 +193,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(long.class, new SQLConverter<Long>() {
+		registerDefaultConverter(long.class, new IndexedSQLConverter<Long>() {
 
 			@Override
 			public Class<Long> getConvertedClass() {
@@ -183,7 +201,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Long read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Long read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getLong(column);
 			}
 
@@ -194,7 +212,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Long.class, new SQLConverter<Long>() {
+		registerDefaultConverter(Long.class, new IndexedSQLConverter<Long>() {
 
 			@Override
 			public Class<Long> getConvertedClass() {
@@ -202,7 +220,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Long read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Long read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				long obj = rs.getLong(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -218,7 +236,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(float.class, new SQLConverter<Float>() {
+		registerDefaultConverter(float.class, new IndexedSQLConverter<Float>() {
 
 			@Override
 			public Class<Float> getConvertedClass() {
@@ -226,7 +244,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Float read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Float read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getFloat(column);
 			}
 
@@ -237,7 +255,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Float.class, new SQLConverter<Float>() {
+		registerDefaultConverter(Float.class, new IndexedSQLConverter<Float>() {
 
 			@Override
 			public Class<Float> getConvertedClass() {
@@ -245,7 +263,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Float read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Float read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				float obj = rs.getFloat(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -261,7 +279,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(double.class, new SQLConverter<Double>() {
+		registerDefaultConverter(double.class, new IndexedSQLConverter<Double>() {
 
 			@Override
 			public Class<Double> getConvertedClass() {
@@ -269,7 +287,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Double read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Double read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getDouble(column);
 			}
 
@@ -280,7 +298,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Double.class, new SQLConverter<Double>() {
+		registerDefaultConverter(Double.class, new IndexedSQLConverter<Double>() {
 
 			@Override
 			public Class<Double> getConvertedClass() {
@@ -288,7 +306,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Double read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Double read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				double obj = rs.getDouble(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -304,7 +322,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(boolean.class, new SQLConverter<Boolean>() {
+		registerDefaultConverter(boolean.class, new IndexedSQLConverter<Boolean>() {
 
 			@Override
 			public Class<Boolean> getConvertedClass() {
@@ -312,7 +330,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Boolean read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Boolean read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getBoolean(column);
 			}
 
@@ -323,7 +341,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Boolean.class, new SQLConverter<Boolean>() {
+		registerDefaultConverter(Boolean.class, new IndexedSQLConverter<Boolean>() {
 
 			@Override
 			public Class<Boolean> getConvertedClass() {
@@ -331,7 +349,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Boolean read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Boolean read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				boolean obj = rs.getBoolean(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -347,7 +365,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter("yes_no", new SQLConverter<Boolean>() {
+		registerDefaultConverter("yes_no", new IndexedSQLConverter<Boolean>() {
 
 			@Override
 			public Class<Boolean> getConvertedClass() {
@@ -355,7 +373,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Boolean read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Boolean read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				String str = rs.getString(column);
 				if (rs.wasNull()) {
 					return targetType == Boolean.class ? null : false;
@@ -378,7 +396,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(char.class, new SQLConverter<Character>() {
+		registerDefaultConverter(char.class, new IndexedSQLConverter<Character>() {
 
 			@Override
 			public Class<Character> getConvertedClass() {
@@ -386,7 +404,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Character read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Character read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				String str = rs.getString(column);
 				if (rs.wasNull()) {
 					return Character.MIN_VALUE;
@@ -406,7 +424,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Character.class, new SQLConverter<Character>() {
+		registerDefaultConverter(Character.class, new IndexedSQLConverter<Character>() {
 
 			@Override
 			public Class<Character> getConvertedClass() {
@@ -414,7 +432,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Character read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Character read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				String str = rs.getString(column);
 				if (rs.wasNull()) {
 					return null;
@@ -439,7 +457,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(String.class, new SQLConverter<String>() {
+		registerDefaultConverter(String.class, new IndexedSQLConverter<String>() {
 
 			@Override
 			public Class<String> getConvertedClass() {
@@ -447,7 +465,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public String read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public String read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				String str = rs.getString(column);
 				if (rs.wasNull()) {
 					return null;
@@ -467,7 +485,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(BigInteger.class, new SQLConverter<BigInteger>() {
+		registerDefaultConverter(BigInteger.class, new IndexedSQLConverter<BigInteger>() {
 
 			@Override
 			public Class<BigInteger> getConvertedClass() {
@@ -475,7 +493,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public BigInteger read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public BigInteger read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				BigDecimal obj = rs.getBigDecimal(column);
 				return rs.wasNull() ? null : obj.toBigInteger();
 			}
@@ -491,7 +509,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(BigDecimal.class, new SQLConverter<BigDecimal>() {
+		registerDefaultConverter(BigDecimal.class, new IndexedSQLConverter<BigDecimal>() {
 
 			@Override
 			public Class<BigDecimal> getConvertedClass() {
@@ -499,7 +517,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public BigDecimal read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public BigDecimal read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				BigDecimal obj = rs.getBigDecimal(column);
 				return rs.wasNull() ? null : obj;
 			}
@@ -515,7 +533,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(LocalDate.class, new SQLConverter<LocalDate>() {
+		registerDefaultConverter(LocalDate.class, new IndexedSQLConverter<LocalDate>() {
 
 			@Override
 			public Class<LocalDate> getConvertedClass() {
@@ -523,7 +541,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public LocalDate read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public LocalDate read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				String strVal = rs.getString(column);
 				return rs.wasNull() ? null : LocalDate.parse(strVal);
 			}
@@ -539,7 +557,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(LocalTime.class, new SQLConverter<LocalTime>() {
+		registerDefaultConverter(LocalTime.class, new IndexedSQLConverter<LocalTime>() {
 
 			@Override
 			public Class<LocalTime> getConvertedClass() {
@@ -547,7 +565,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public LocalTime read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public LocalTime read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				String strVal = rs.getString(column);
 				return rs.wasNull() ? null : LocalTime.parse(strVal);
 			}
@@ -563,7 +581,7 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(LocalDateTime.class, new SQLConverter<LocalDateTime>() {
+		registerDefaultConverter(LocalDateTime.class, new IndexedSQLConverter<LocalDateTime>() {
 
 			@Override
 			public Class<LocalDateTime> getConvertedClass() {
@@ -571,7 +589,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public LocalDateTime read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public LocalDateTime read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				Timestamp stamp = rs.getTimestamp(column);
 				return rs.wasNull() ? null : stamp.toLocalDateTime();
 			}
@@ -587,40 +605,12 @@ public class ConversionRegistry {
 
 		});
 
-		registerDefaultConverter(Enum.class, new SQLConverter<Enum>() {
+		EnumConverter enumsByName = new EnumConverter(EnumConverter.Mode.NAME);
+		registerDefaultConverter(enumsByName.getConvertedClass(), enumsByName);
+		registerDefaultConverter(ENUM_ORDINAL, new EnumConverter(EnumConverter.Mode.ORDINAL));
+		registerDefaultConverter(ENUM_CODE, new EnumConverter(EnumConverter.Mode.CODE));
 
-			@Override
-			public Class<Enum> getConvertedClass() {
-				return Enum.class;
-			}
-
-			@Override
-			public Enum read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
-				try {
-					String columnVal = rs.getString(column);
-					if (rs.wasNull()) {
-						return null;
-					}
-					Method valueOf = targetType.getDeclaredMethod("valueOf", String.class);
-					valueOf.setAccessible(true);
-					return (Enum<?>) valueOf.invoke(null, columnVal);
-				} catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-					throw new RuntimeException(e);
-				}
-			}
-
-			@Override
-			public void write(PreparedStatement ps, int parameterIndex, Enum val) throws SQLException {
-				if (val == null) {
-					ps.setNull(parameterIndex, Types.VARCHAR);
-				} else {
-					ps.setString(parameterIndex, val.name());
-				}
-			}
-
-		});
-
-		registerDefaultConverter(Object.class, new SQLConverter<Object>() {
+		registerDefaultConverter(Object.class, new IndexedSQLConverter<Object>() {
 
 			@Override
 			public Class<Object> getConvertedClass() {
@@ -628,7 +618,7 @@ public class ConversionRegistry {
 			}
 
 			@Override
-			public Object read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+			public Object read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
 				return rs.getObject(column);
 			}
 
@@ -641,34 +631,111 @@ public class ConversionRegistry {
 
 	}
 
-	private Map<String, SQLConverter> registry;
+	private final Map<String, SQLConverter<?>> registry;
+
+	/** Hash of the registered names and converter identities, computed on first use since registries are immutable */
+	private int hash;
+
+	/** Converter resolved for each class, memoized so resolution never scans the registry twice for the same class */
+	private final ClassValue<SQLConverter<?>> converter_byClass = new ClassValue<SQLConverter<?>>() {
+		@Override
+		protected SQLConverter<?> computeValue(Class<?> type) {
+			SQLConverter<?> exactConverter = registry.get(type.getName());
+			if (exactConverter != null) {
+				return exactConverter;
+			}
+			return registry.values()
+			               .stream()
+			               .filter(converter -> converter.getConvertedClass().isAssignableFrom(type))
+			               .findFirst()
+			               .orElseThrow(() -> new ConversionException("No suitable converter found for " + type));
+		}
+	};
 
+	/**
+	 * Creates a registry of the current default converters. Prefer {@link #getDefault()}, which returns a shared instance
+	 */
 	public ConversionRegistry() {
-		registry = new HashMap<>(DEFAULT_REGISTRY);
+		synchronized (ConversionRegistry.class) {
+			registry = Collections.unmodifiableMap(new LinkedHashMap<>(DEFAULT_REGISTRY));
+		}
+	}
+
+	private ConversionRegistry(Map<String, SQLConverter<?>> registry) {
+		this.registry = Collections.unmodifiableMap(registry);
 	}
 
+	/**
+	 * Adds a converter to the defaults. Registries created before this call, including earlier default instances, are
+	 * not affected
+	 */
 	public static <T> void registerDefaultConverter(Class<T> type, SQLConverter<T> converter) {
 		registerDefaultConverter(type.getName(), converter);
 	}
 
-	public static <T> void registerDefaultConverter(String name, SQLConverter<T> converter) {
+	public static synchronized <T> void registerDefaultConverter(String name, SQLConverter<T> converter) {
 		DEFAULT_REGISTRY.put(name, converter);
+		defaultInstance = null;
 	}
 
+	/**
+	 * Returns the shared registry of the default converters
+	 */
 	public static ConversionRegistry getDefault() {
-		return new ConversionRegistry();
+		ConversionRegistry defaults = defaultInstance;
+		if (defaults == null) {
+			synchronized (ConversionRegistry.class) {
+				defaults = defaultInstance;
+				if (defaults == null) {
+					defaults = defaultInstance = new ConversionRegistry();
+				}
+			}
+		}
+		return defaults;
 	}
 
 	public boolean containsConverterFor(Class<?> type) {
 		return registry.containsKey(type.getName());
 	}
 
+	/**
+	 * Returns a copy of this registry with the given converter registered for the given class
+	 */
+	public <T> ConversionRegistry withConverter(Class<T> type, SQLConverter<T> converter) {
+		return withConverter(type.getName(), converter);
+	}
+
+	/**
+	 * Returns a copy of this registry with the given converter registered under the given name
+	 */
+	public <T> ConversionRegistry withConverter(String name, SQLConverter<T> converter) {
+		Map<String, SQLConverter<?>> copy = new LinkedHashMap<>(registry);
+		copy.put(name, converter);
+		return new ConversionRegistry(copy);
+	}
+
+	/**
+	 * Registries are immutable, so converters can no longer be added in place
+	 * @deprecated Use {@link #withConverter(Class, SQLConverter)}, or SQLPlus.registerConverter to register a converter
+	 * with the queries of one SQLPlus instance
+	 * @throws UnsupportedOperationException always
+	 */
+	@Deprecated
 	public <T> void registerConverter(Class<T> type, SQLConverter<T> converter) {
-		registry.put(type.getName(), converter);
+		throw new UnsupportedOperationException(
+			"Conversion registries are immutable. Use withConverter(), or SQLPlus.registerConverter() to register " + type + " with a SQLPlus instance");
 	}
 
+	/**
+	 * Registries are immutable, so converters can no longer be added in place
+	 * @deprecated Use {@link #withConverter(String, SQLConverter)}, or SQLPlus.registerConverter to register a converter
+	 * with the queries of one SQLPlus instance
+	 * @throws UnsupportedOperationException always
+	 */
+	@Deprecated
 	public <T> void registerConverter(String name, SQLConverter<T> converter) {
-		registry.put(name, converter);
+		throw new UnsupportedOperationException(
+			"Conversion registries are immutable. Use withConverter(), or SQLPlus.registerConverter() to register '" + name + "' with a SQLPlus instance");
 	}
 
 	public <T> SQLConverter<T> getConverter(Field field) {
@@ -682,20 +749,54 @@ public class ConversionRegistry {
 	@SuppressWarnings("unchecked")
 	public <T> SQLConverter<T> getConverter(String name) {
 		if (registry.containsKey(name)) {
-			return registry.get(name);
+			return (SQLConverter<T>) registry.get(name);
 		} else {
 			throw new IllegalArgumentException("No converter is registered for name '" + name + "'");
 		}
 	}
 
+	@SuppressWarnings("unchecked")
 	public <T> SQLConverter<T> getConverter(Class<T> type) {
-		return (SQLConverter<T>) registry.computeIfAbsent(type.getName(), t -> {
-			return registry.values()
-			               .stream()
-			               .filter(converter -> converter.getConvertedClass().isAssignableFrom(type))
-			               .findFirst()
-			               .orElseThrow(() -> new ConversionException("No suitable converter found for " + type));
-		});
+		return (SQLConverter<T>) converter_byClass.get(type);
+	}
+
+	/**
+	 * Registries are equal if they hold the same converter instances under the same names in the same order, in which
+	 * case they resolve every class and name to the same converter
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof ConversionRegistry)) {
+			return false;
+		}
+		ConversionRegistry other = (ConversionRegistry) o;
+		if (registry.size() != other.registry.size()) {
+			return false;
+		}
+		Iterator<Map.Entry<String, SQLConverter<?>>> otherEntries = other.registry.entrySet().iterator();
+		for (Map.Entry<String, SQLConverter<?>> entry : registry.entrySet()) {
+			Map.Entry<String, SQLConverter<?>> otherEntry = otherEntries.next();
+			if (!entry.getKey().equals(otherEntry.getKey()) || entry.getValue() != otherEntry.getValue()) {
+				return false;
+			}
+		}
+		return true;
 	}
-	
+
+	@Override
+	public int hashCode() {
+		int hash = this.hash;
+		if (hash == 0) {
+			hash = 1;
+			for (Map.Entry<String, SQLConverter<?>> entry : registry.entrySet()) {
+				hash = 31 * hash + (entry.getKey().hashCode() ^ System.identityHashCode(entry.getValue()));
+			}
+			this.hash = hash;
+		}
+		return hash;
+	}
+
 }
@@ -0,0 +1,157 @@
+package com.tyler.sqlplus.conversion;
+
+import com.tyler.sqlplus.exception.ConversionException;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts enum values to and from their name, ordinal or {@link CodedEnum code}.
+ * <br/><br/>
+ * The lookup tables for each enum type are built once and shared by all converters, so reading a value is a single map
+ * or array lookup, with no reflection. Reading by ordinal or code reads an int column and allocates nothing
+ */
+final class EnumConverter extends IndexedSQLConverter<Enum<?>> {
+
+	enum Mode { NAME, ORDINAL, CODE }
+
+	private static final ClassValue<Constants> CONSTANTS = new ClassValue<Constants>() {
+		@Override
+		protected Constants computeValue(Class<?> type) {
+			return new Constants(type);
+		}
+	};
+
+	private final Mode mode;
+
+	EnumConverter(Mode mode) {
+		this.mode = mode;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Class<Enum<?>> getConvertedClass() {
+		return (Class<Enum<?>>) (Class<?>) Enum.class;
+	}
+
+	@Override
+	public Enum<?> read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
+		Constants constants = CONSTANTS.get(enumType(targetType));
+		switch (mode) {
+			case ORDINAL: {
+				int ordinal = rs.getInt(column);
+				return rs.wasNull() ? null : constants.forOrdinal(ordinal);
+			}
+			case CODE: {
+				int code = rs.getInt(column);
+				return rs.wasNull() ? null : constants.forCode(code);
+			}
+			default: {
+				String name = rs.getString(column);
+				return rs.wasNull() ? null : constants.forName(name);
+			}
+		}
+	}
+
+	@Override
+	public int getNullType() {
+		return mode == Mode.NAME ? Types.VARCHAR : Types.INTEGER;
+	}
+
+	@Override
+	public void write(PreparedStatement ps, int parameterIndex, Enum<?> val) throws SQLException {
+		if (mode == Mode.NAME) {
+			if (val == null) {
+				ps.setNull(parameterIndex, Types.VARCHAR);
+			} else {
+				ps.setString(parameterIndex, val.name());
+			}
+		}
+		else if (val == null) {
+			ps.setNull(parameterIndex, Types.INTEGER);
+		}
+		else if (mode == Mode.ORDINAL) {
+			ps.setInt(parameterIndex, val.ordinal());
+		}
+		else if (val instanceof CodedEnum) {
+			ps.setInt(parameterIndex, ((CodedEnum) val).getCode());
+		}
+		else {
+			throw new ConversionException(val.getDeclaringClass() + " must implement " + CodedEnum.class.getSimpleName() + " to be stored by code");
+		}
+	}
+
+	/**
+	 * Returns the enum type declaring the given type, which differs from it for constants with bodies
+	 */
+	private static Class<?> enumType(Class<?> targetType) {
+		if (targetType.isEnum()) {
+			return targetType;
+		}
+		if (targetType.getSuperclass() != null && targetType.getSuperclass().isEnum()) {
+			return targetType.getSuperclass();
+		}
+		throw new ConversionException("Cannot read enum values into " + targetType);
+	}
+
+	/**
+	 * The constants of a single enum type, indexed by name, ordinal and code
+	 */
+	private static final class Constants {
+
+		private final Class<?> type;
+		private final Enum<?>[] byOrdinal;
+		private final Map<String, Enum<?>> byName;
+
+		/** Constants by code, or null if the enum is not a {@link CodedEnum} */
+		private final Map<Integer, Enum<?>> byCode;
+
+		Constants(Class<?> type) {
+			this.type = type;
+			this.byOrdinal = (Enum<?>[]) type.getEnumConstants();
+			this.byName = new HashMap<>(byOrdinal.length * 2);
+			this.byCode = CodedEnum.class.isAssignableFrom(type) ? new HashMap<>(byOrdinal.length * 2) : null;
+			for (Enum<?> constant : byOrdinal) {
+				byName.put(constant.name(), constant);
+				if (byCode != null) {
+					Enum<?> existing = byCode.put(((CodedEnum) constant).getCode(), constant);
+					if (existing != null) {
+						throw new ConversionException(existing + " and " + constant + " of " + type + " have the same code");
+					}
+				}
+			}
+		}
+
+		Enum<?> forName(String name) {
+			Enum<?> constant = byName.get(name);
+			if (constant == null) {
+				throw new ConversionException("No enum constant " + type.getName() + "." + name);
+			}
+			return constant;
+		}
+
+		Enum<?> forOrdinal(int ordinal) {
+			if (ordinal < 0 || ordinal >= byOrdinal.length) {
+				throw new ConversionException("No constant of " + type.getName() + " has ordinal " + ordinal);
+			}
+			return byOrdinal[ordinal];
+		}
+
+		Enum<?> forCode(int code) {
+			if (byCode == null) {
+				throw new ConversionException(type + " must implement " + CodedEnum.class.getSimpleName() + " to be read by code");
+			}
+			Enum<?> constant = byCode.get(code);
+			if (constant == null) {
+				throw new ConversionException("No constant of " + type.getName() + " has code " + code);
+			}
+			return constant;
+		}
+
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.tyler.sqlplus.conversion;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A {@link SQLConverter} which reads values by column index, the fastest path for most drivers. Reads by column label
+ * resolve the label with {@link ResultSet#findColumn(String)} and then read by index.
+ * <br/><br/>
+ * Row mappers resolve each column's index once per result set and read through {@link #read(ResultSet, int, Class)},
+ * so converters extending this class avoid a per-cell label lookup
+ */
+public abstract class IndexedSQLConverter<T> extends SQLConverter<T> {
+
+	@Override
+	public abstract T read(ResultSet rs, int column, Class<?> targetType) throws SQLException;
+
+	@Override
+	public T read(ResultSet rs, String column, Class<?> targetType) throws SQLException {
+		return read(rs, rs.findColumn(column), targetType);
+	}
+
+}
@@ -1,15 +1,56 @@
 package com.tyler.sqlplus.conversion;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
 
 public abstract class SQLConverter<T> {
 
+	/** SQL types of the classes which have a standard JDBC mapping, used to bind nulls */
+	private static final Map<Class<?>, Integer> SQL_TYPES = new HashMap<>();
+	static {
+		SQL_TYPES.put(byte.class, Types.TINYINT);
+		SQL_TYPES.put(Byte.class, Types.TINYINT);
+		SQL_TYPES.put(short.class, Types.SMALLINT);
+		SQL_TYPES.put(Short.class, Types.SMALLINT);
+		SQL_TYPES.put(int.class, Types.INTEGER);
+		SQL_TYPES.put(Integer.class, Types.INTEGER);
+		SQL_TYPES.put(long.class, Types.BIGINT);
+		SQL_TYPES.put(Long.class, Types.BIGINT);
+		SQL_TYPES.put(float.class, Types.FLOAT);
+		SQL_TYPES.put(Float.class, Types.FLOAT);
+		SQL_TYPES.put(double.class, Types.DOUBLE);
+		SQL_TYPES.put(Double.class, Types.DOUBLE);
+		SQL_TYPES.put(boolean.class, Types.BOOLEAN);
+		SQL_TYPES.put(Boolean.class, Types.BOOLEAN);
+		SQL_TYPES.put(char.class, Types.CHAR);
+		SQL_TYPES.put(Character.class, Types.CHAR);
+		SQL_TYPES.put(String.class, Types.VARCHAR);
+		SQL_TYPES.put(BigInteger.class, Types.BIGINT);
+		SQL_TYPES.put(BigDecimal.class, Types.DECIMAL);
+		SQL_TYPES.put(LocalDate.class, Types.DATE);
+		SQL_TYPES.put(LocalTime.class, Types.TIME);
+		SQL_TYPES.put(LocalDateTime.class, Types.TIMESTAMP);
+		SQL_TYPES.put(java.sql.Date.class, Types.DATE);
+		SQL_TYPES.put(java.sql.Time.class, Types.TIME);
+		SQL_TYPES.put(java.sql.Timestamp.class, Types.TIMESTAMP);
+	}
+
 	public abstract Class<T> getConvertedClass();
 
 	/**
-	 * Reads a value from a {@link ResultSet}
+	 * Reads a value from a {@link ResultSet} by column index. Row mappers always read through this method
+	 * <br/>
+	 * By default this looks up the label of the column and reads by label. Converters which can read by index directly
+	 * should override it, or extend {@link IndexedSQLConverter}
 	 */
 	public T read(ResultSet rs, int colIndex, Class<?> targetType) throws SQLException {
 		String labelForIndex = rs.getMetaData().getColumnLabel(colIndex);
@@ -24,4 +65,14 @@ public abstract class SQLConverter<T> {
 	 */
 	public abstract void write(PreparedStatement ps, int parameterIndex, T obj) throws SQLException;
 
+	/**
+	 * The {@link Types} constant to bind a null with when a query parameter which was bound with this converter is set
+	 * to null, so the parameter keeps the same SQL type across batches. By default this is derived from the converted
+	 * class, or {@link Types#NULL} if that class has no standard JDBC mapping
+	 */
+	public int getNullType() {
+		Integer sqlType = SQL_TYPES.get(getConvertedClass());
+		return sqlType == null ? Types.NULL : sqlType;
+	}
+
 }
@@ -0,0 +1,341 @@
+package com.tyler.sqlplus.mapper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A read-only view of rows which have been copied out of a result set, so they can be mapped after the cursor has moved
+ * on, and on a different thread than the one reading the result set.
+ * <br/><br/>
+ * The view exposes the current row through the {@link ResultSet} getters used by row mappers and converters. Values are
+ * held as returned by {@link ResultSet#getObject(int)}, and the typed getters convert from them the way a driver would.
+ * Cursor movement and updates are not supported
+ */
+final class DetachedResultSet implements InvocationHandler {
+
+	private final Columns columns;
+
+	private final ResultSet proxy;
+
+	private Object[] row;
+
+	private boolean wasNull;
+
+	private DetachedResultSet(Columns columns) {
+		this.columns = columns;
+		this.proxy = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ ResultSet.class }, this);
+	}
+
+	/**
+	 * Creates a view over rows with the given columns. The view reads whichever row was last passed to
+	 * {@link #setRow(Object[])}, so a view should only be used by one thread at a time
+	 */
+	static DetachedResultSet over(Columns columns) {
+		return new DetachedResultSet(columns);
+	}
+
+	/**
+	 * Copies the values of the current row of the given result set. LOB values are read in full, since they cannot be
+	 * read once the cursor has moved on
+	 */
+	static Object[] detachRow(ResultSet rs, int columnCount) throws SQLException {
+		Object[] row = new Object[columnCount];
+		for (int col = 1; col <= columnCount; col++) {
+			Object value = rs.getObject(col);
+			if (value instanceof Clob) {
+				Clob clob = (Clob) value;
+				value = clob.getSubString(1, (int) clob.length());
+			}
+			else if (value instanceof Blob) {
+				Blob blob = (Blob) value;
+				value = blob.getBytes(1, (int) blob.length());
+			}
+			row[col - 1] = value;
+		}
+		return row;
+	}
+
+	void setRow(Object[] row) {
+		this.row = row;
+		this.wasNull = false;
+	}
+
+	ResultSet getResultSet() {
+		return proxy;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		switch (method.getName()) {
+			case "getMetaData":
+				return columns.meta;
+			case "findColumn":
+				return columns.indexOf((String) args[0]);
+			case "wasNull":
+				return wasNull;
+			case "isClosed":
+				return false;
+			case "close":
+				return null;
+			case "unwrap":
+				if (((Class<?>) args[0]).isInstance(proxy)) {
+					return proxy;
+				}
+				throw new SQLException("Detached result set is not a wrapper for " + args[0]);
+			case "isWrapperFor":
+				return ((Class<?>) args[0]).isInstance(proxy);
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return "DetachedResultSet" + columns.labelList();
+		}
+		if (method.getName().startsWith("get") && args != null && args.length >= 1 && args.length <= 2) {
+			int col = args[0] instanceof String ? columns.indexOf((String) args[0]) : (Integer) args[0];
+			return read(method, col, args.length == 2 ? args[1] : null);
+		}
+		throw new SQLFeatureNotSupportedException(method.getName() + " is not supported on a detached result set");
+	}
+
+	private Object read(Method method, int col, Object extraArg) throws SQLException {
+
+		if (row == null) {
+			throw new SQLException("No current row");
+		}
+		if (col < 1 || col > row.length) {
+			throw new SQLException("Column index " + col + " is out of range (columns: " + row.length + ")");
+		}
+
+		Object value = row[col - 1];
+		wasNull = value == null;
+		Class<?> returnType = method.getReturnType();
+
+		if (method.getName().equals("getObject")) {
+			if (extraArg instanceof Class) {
+				return convert(value, (Class<?>) extraArg, method);
+			}
+			if (extraArg == null) {
+				return value;
+			}
+			throw new SQLFeatureNotSupportedException(method.getName() + " with a type map is not supported on a detached result set");
+		}
+
+		Object converted = convert(value, returnType, method);
+		if (converted instanceof BigDecimal && extraArg instanceof Integer) {
+			converted = ((BigDecimal) converted).setScale((Integer) extraArg, RoundingMode.HALF_UP);
+		}
+		return converted;
+	}
+
+	private static Object convert(Object value, Class<?> type, Method method) throws SQLException {
+
+		if (value == null) {
+			if (!type.isPrimitive()) {
+				return null;
+			}
+			return type == boolean.class ? (Object) false : defaultNumber(type);
+		}
+
+		if (!type.isPrimitive() && type.isInstance(value)) {
+			return value;
+		}
+
+		try {
+			if (type == String.class) {
+				return value instanceof byte[] ? new String((byte[]) value) : value.toString();
+			}
+			if (type == boolean.class || type == Boolean.class) {
+				if (value instanceof Boolean) {
+					return value;
+				}
+				if (value instanceof Number) {
+					return ((Number) value).intValue() != 0;
+				}
+				String str = value.toString().trim();
+				return str.equals("1") || str.equalsIgnoreCase("true");
+			}
+			if (type.isPrimitive() || Number.class.isAssignableFrom(type)) {
+				return toNumber(value, type);
+			}
+			if (type == Timestamp.class) {
+				if (value instanceof java.util.Date) {
+					return new Timestamp(((java.util.Date) value).getTime());
+				}
+				if (value instanceof LocalDateTime) {
+					return Timestamp.valueOf((LocalDateTime) value);
+				}
+				if (value instanceof LocalDate) {
+					return Timestamp.valueOf(((LocalDate) value).atStartOfDay());
+				}
+				return Timestamp.valueOf(value.toString());
+			}
+			if (type == Date.class) {
+				if (value instanceof java.util.Date) {
+					return new Date(((java.util.Date) value).getTime());
+				}
+				if (value instanceof LocalDate) {
+					return Date.valueOf((LocalDate) value);
+				}
+				if (value instanceof LocalDateTime) {
+					return Date.valueOf(((LocalDateTime) value).toLocalDate());
+				}
+				return Date.valueOf(value.toString());
+			}
+			if (type == Time.class) {
+				if (value instanceof java.util.Date) {
+					return new Time(((java.util.Date) value).getTime());
+				}
+				if (value instanceof LocalTime) {
+					return Time.valueOf((LocalTime) value);
+				}
+				return Time.valueOf(value.toString());
+			}
+			if (type == byte[].class && value instanceof String) {
+				return ((String) value).getBytes();
+			}
+		} catch (IllegalArgumentException e) {
+			throw new SQLException("Cannot convert value '" + value + "' to " + type.getSimpleName(), e);
+		}
+
+		throw new SQLException("Cannot convert value of " + value.getClass() + " to " + type.getSimpleName() + " for " + method.getName());
+	}
+
+	private static Object toNumber(Object value, Class<?> type) {
+		BigDecimal decimal;
+		if (value instanceof BigDecimal) {
+			decimal = (BigDecimal) value;
+		}
+		else if (value instanceof BigInteger) {
+			decimal = new BigDecimal((BigInteger) value);
+		}
+		else if (value instanceof Boolean) {
+			decimal = (Boolean) value ? BigDecimal.ONE : BigDecimal.ZERO;
+		}
+		else if (value instanceof Double || value instanceof Float) {
+			decimal = BigDecimal.valueOf(((Number) value).doubleValue());
+		}
+		else if (value instanceof Number) {
+			decimal = BigDecimal.valueOf(((Number) value).longValue());
+		}
+		else {
+			decimal = new BigDecimal(value.toString().trim());
+		}
+
+		if (type == int.class || type == Integer.class) return decimal.intValue();
+		if (type == long.class || type == Long.class) return decimal.longValue();
+		if (type == short.class || type == Short.class) return decimal.shortValue();
+		if (type == byte.class || type == Byte.class) return decimal.byteValue();
+		if (type == double.class || type == Double.class) return decimal.doubleValue();
+		if (type == float.class || type == Float.class) return decimal.floatValue();
+		if (type == BigInteger.class) return decimal.toBigInteger();
+		return decimal;
+	}
+
+	private static Object defaultNumber(Class<?> primitiveType) {
+		if (primitiveType == int.class) return 0;
+		if (primitiveType == long.class) return 0L;
+		if (primitiveType == short.class) return (short) 0;
+		if (primitiveType == byte.class) return (byte) 0;
+		if (primitiveType == double.class) return 0d;
+		if (primitiveType == float.class) return 0f;
+		return null;
+	}
+
+	/**
+	 * The columns of a result set, captured once so that views over its detached rows can answer metadata and
+	 * column-label lookups without going back to the driver
+	 */
+	static final class Columns implements InvocationHandler {
+
+		private final String[] labels;
+		private final String[] names;
+		private final int[] types;
+		private final String[] typeNames;
+		private final String[] classNames;
+
+		/** Column labels are matched case-insensitively, as with a driver's result set */
+		private final Map<String, Integer> index_byLabel = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+		private final ResultSetMetaData meta;
+
+		Columns(ResultSetMetaData source) throws SQLException {
+			int count = source.getColumnCount();
+			labels = new String[count];
+			names = new String[count];
+			types = new int[count];
+			typeNames = new String[count];
+			classNames = new String[count];
+			for (int col = 1; col <= count; col++) {
+				labels[col - 1] = source.getColumnLabel(col);
+				names[col - 1] = source.getColumnName(col);
+				types[col - 1] = source.getColumnType(col);
+				typeNames[col - 1] = source.getColumnTypeName(col);
+				classNames[col - 1] = source.getColumnClassName(col);
+				index_byLabel.putIfAbsent(labels[col - 1], col); // First matching column wins, as with findColumn()
+			}
+			meta = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(), new Class<?>[]{ ResultSetMetaData.class }, this);
+		}
+
+		int getCount() {
+			return labels.length;
+		}
+
+		int indexOf(String label) throws SQLException {
+			Integer index = index_byLabel.get(label);
+			if (index == null) {
+				throw new SQLException("Column '" + label + "' not found");
+			}
+			return index;
+		}
+
+		private String labelList() {
+			return Arrays.toString(labels);
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "getColumnCount": return labels.length;
+				case "getColumnLabel": return labels[column(args) - 1];
+				case "getColumnName": return names[column(args) - 1];
+				case "getColumnType": return types[column(args) - 1];
+				case "getColumnTypeName": return typeNames[column(args) - 1];
+				case "getColumnClassName": return classNames[column(args) - 1];
+				case "hashCode": return System.identityHashCode(proxy);
+				case "equals": return proxy == args[0];
+				case "toString": return "DetachedResultSetMetaData" + labelList();
+			}
+			throw new SQLFeatureNotSupportedException(method.getName() + " is not supported on detached result set metadata");
+		}
+
+		private int column(Object[] args) throws SQLException {
+			int col = (Integer) args[0];
+			if (col < 1 || col > labels.length) {
+				throw new SQLException("Column index " + col + " is out of range (columns: " + labels.length + ")");
+			}
+			return col;
+		}
+
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.tyler.sqlplus.mapper;
+
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.conversion.SQLConverter;
+import com.tyler.sqlplus.utility.ConcurrentLRUCache;
+
+import java.lang.reflect.Field;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * How the columns of a result set map to the fields of a POJO class: which fields are loaded, from which column index,
+ * and with which converter.
+ * <br/><br/>
+ * Plans are immutable and shared between all sessions and threads through a bounded, least-recently-used cache keyed by
+ * the class, the labels and SQL types of the columns, and the contents of the conversion registry, so a given query
+ * shape is only planned the first time it is mapped, even by queries whose registries are separate instances
+ */
+final class MappingPlan {
+
+	/** Maximum number of distinct class / column layouts whose plans are retained */
+	static final int CACHE_SIZE = 1024;
+
+	private static final ConcurrentLRUCache<Key, MappingPlan> CACHE = new ConcurrentLRUCache<>(CACHE_SIZE);
+
+	final Field[] fields;
+
+	/** 1-based index of the column each field is loaded from */
+	final int[] columnIndexes;
+
+	final SQLConverter<?>[] converters;
+
+	private MappingPlan(Map<Field, String> loadableFields, Map<String, Integer> columnIndex_byLabel, ConversionRegistry conversionRegistry) {
+		this.fields = new Field[loadableFields.size()];
+		this.columnIndexes = new int[fields.length];
+		this.converters = new SQLConverter<?>[fields.length];
+		int i = 0;
+		for (Map.Entry<Field, String> loadableField : loadableFields.entrySet()) {
+			fields[i] = loadableField.getKey();
+			columnIndexes[i] = columnIndex_byLabel.get(loadableField.getValue());
+			converters[i] = conversionRegistry.getConverter(loadableField.getKey());
+			i++;
+		}
+	}
+
+	/**
+	 * Retrieves the plan for mapping result sets with the given metadata to the given class, planning it if this layout
+	 * has not been seen recently
+	 */
+	static MappingPlan of(Class<?> klass, ResultSetMetaData meta, ConversionRegistry conversionRegistry) throws SQLException {
+		int columnCount = meta.getColumnCount();
+		String[] labels = new String[columnCount];
+		int[] types = new int[columnCount];
+		for (int col = 1; col <= columnCount; col++) {
+			labels[col - 1] = meta.getColumnLabel(col);
+			types[col - 1] = meta.getColumnType(col);
+		}
+		return CACHE.computeIfAbsent(new Key(klass, labels, types, conversionRegistry), key -> {
+			return new MappingPlan(
+				RowMapperFactory.determineLoadableFields(labels, klass), RowMapperFactory.indexColumns(labels), conversionRegistry);
+		});
+	}
+
+	static ConcurrentLRUCache<Key, MappingPlan> cache() {
+		return CACHE;
+	}
+
+	static final class Key {
+
+		private final Class<?> klass;
+		private final String[] labels;
+		private final int[] types;
+		private final ConversionRegistry conversionRegistry;
+		private final int hash;
+
+		Key(Class<?> klass, String[] labels, int[] types, ConversionRegistry conversionRegistry) {
+			this.klass = klass;
+			this.labels = labels;
+			this.types = types;
+			this.conversionRegistry = conversionRegistry;
+			this.hash = 31 * (31 * (31 * klass.hashCode() + Arrays.hashCode(labels)) + Arrays.hashCode(types)) +
+			            conversionRegistry.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return klass == other.klass &&
+			       Arrays.equals(labels, other.labels) &&
+			       Arrays.equals(types, other.types) &&
+			       conversionRegistry.equals(other.conversionRegistry);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+	}
+
+}
@@ -4,9 +4,15 @@ import com.tyler.sqlplus.exception.SQLRuntimeException;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -16,33 +22,311 @@ import java.util.stream.StreamSupport;
 public class ResultStream {
 
 	private static class ResultIterator implements Iterator<ResultSet> {
-		
-		private ResultSet rs;
-		
-		public ResultIterator(ResultSet rs) throws SQLException {
+
+		private final ResultSet rs;
+
+		private final Statement statement;
+
+		private final boolean cancelIfUnfinished;
+
+		private final Runnable afterClose;
+
+		/** Whether the result set has been advanced to a row which has not yet been returned by next() */
+		private boolean hasPendingRow;
+
+		/** Whether the result set has been read past its last row */
+		private boolean isExhausted;
+
+		private boolean isClosed;
+
+		public ResultIterator(ResultSet rs, Statement statement, boolean cancelIfUnfinished, Runnable afterClose) {
 			this.rs = rs;
+			this.statement = statement;
+			this.cancelIfUnfinished = cancelIfUnfinished;
+			this.afterClose = afterClose;
 		}
-		
+
 		@Override
 		public boolean hasNext() {
+			if (hasPendingRow) {
+				return true;
+			}
+			if (isClosed) {
+				return false;
+			}
 			try {
-				return rs.next();
+				hasPendingRow = rs.next();
 			} catch (SQLException e) {
+				close();
 				throw new SQLRuntimeException(e);
 			}
+			if (!hasPendingRow) {
+				isExhausted = true;
+				close();
+			}
+			return hasPendingRow;
 		}
 
 		@Override
 		public ResultSet next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			hasPendingRow = false;
 			return rs;
 		}
-		
+
+		/**
+		 * Closes the result set and its statement, if not already closed. Called when the stream is closed or all rows
+		 * have been read
+		 */
+		void close() {
+			if (isClosed) {
+				return;
+			}
+			isClosed = true;
+			hasPendingRow = false;
+			try {
+				if (cancelIfUnfinished && !isExhausted && statement != null) {
+					cancelQuietly();
+				}
+				rs.close();
+				if (statement != null) {
+					statement.close();
+				}
+			} catch (SQLException e) {
+				throw new SQLRuntimeException(e);
+			} finally {
+				if (afterClose != null) {
+					afterClose.run();
+				}
+			}
+		}
+
+		/**
+		 * Cancels the statement so the database stops producing rows nobody will read. Some drivers would otherwise read
+		 * all remaining rows of a streamed result when it is closed
+		 */
+		private void cancelQuietly() {
+			try {
+				statement.cancel();
+			} catch (SQLException e) {
+				// Not all drivers support cancellation, in which case the result is simply closed
+			}
+		}
+
 	};
-	
+
+	/**
+	 * Splits the rows read by a {@link RowChunkReader} into one chunk per split, so each chunk is mapped on whichever
+	 * thread processes it
+	 */
+	private static class ChunkedRowSpliterator<T> implements Spliterator<T> {
+
+		private final RowChunkReader reader;
+
+		private final Supplier<RowMapper<T>> mapperFactory;
+
+		/** The chunk being consumed by tryAdvance(), if any */
+		private MappedChunkSpliterator<T> current;
+
+		ChunkedRowSpliterator(RowChunkReader reader, Supplier<RowMapper<T>> mapperFactory) {
+			this.reader = reader;
+			this.mapperFactory = mapperFactory;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			while (current == null || !current.tryAdvance(action)) {
+				current = nextChunk();
+				if (current == null) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			if (current != null && current.estimateSize() > 0) {
+				Spliterator<T> prefix = current;
+				current = null;
+				return prefix;
+			}
+			return nextChunk();
+		}
+
+		private MappedChunkSpliterator<T> nextChunk() {
+			List<Object[]> chunk = reader.nextChunk();
+			return chunk == null ? null : new MappedChunkSpliterator<>(chunk, reader.getColumns(), mapperFactory.get());
+		}
+
+		@Override
+		public long estimateSize() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED;
+		}
+
+	}
+
+	/**
+	 * Maps a chunk of detached rows, one row at a time through a view of the chunk
+	 */
+	private static class MappedChunkSpliterator<T> implements Spliterator<T> {
+
+		private final List<Object[]> rows;
+
+		private final DetachedResultSet view;
+
+		private final RowMapper<T> mapper;
+
+		private int index;
+
+		MappedChunkSpliterator(List<Object[]> rows, DetachedResultSet.Columns columns, RowMapper<T> mapper) {
+			this.rows = rows;
+			this.view = DetachedResultSet.over(columns);
+			this.mapper = mapper;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (index >= rows.size()) {
+				return false;
+			}
+			view.setRow(rows.get(index));
+			rows.set(index++, null); // Let the row be collected once mapped
+			try {
+				action.accept(mapper.map(view.getResultSet()));
+			} catch (SQLException e) {
+				throw new SQLRuntimeException(e);
+			}
+			return true;
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			return null;
+		}
+
+		@Override
+		public long estimateSize() {
+			return rows.size() - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+
+	}
+
+	/**
+	 * Streams over the rows of the given result set, closing it when the stream is closed or all rows have been read
+	 */
 	public static Stream<ResultSet> stream(ResultSet rs) throws SQLException {
-		Iterator<ResultSet> rsIter = new ResultIterator(rs);
-		Spliterator<ResultSet> rsSpliterator = Spliterators.spliteratorUnknownSize(rsIter, Spliterator.ORDERED);
-		return StreamSupport.stream(rsSpliterator, false);
+		return stream(rs, null, false, null);
 	}
-	
+
+	/**
+	 * Streams over the rows of the given result set. The result set and the statement which produced it are closed when
+	 * the stream is closed or all rows have been read, after which the given callback (if any) is run
+	 */
+	public static Stream<ResultSet> stream(ResultSet rs, Statement statement, Runnable afterClose) throws SQLException {
+		return stream(rs, statement, false, afterClose);
+	}
+
+	/**
+	 * Same as {@link #stream(ResultSet, Statement, Runnable)}, optionally cancelling the statement if the stream is
+	 * closed before all rows have been read. This is worth doing for results streamed from a server-side cursor
+	 */
+	public static Stream<ResultSet> stream(ResultSet rs, Statement statement, boolean cancelIfUnfinished, Runnable afterClose) throws SQLException {
+		ResultIterator rsIter = new ResultIterator(rs, statement, cancelIfUnfinished, afterClose);
+		Spliterator<ResultSet> rsSpliterator = new Spliterators.AbstractSpliterator<ResultSet>(Long.MAX_VALUE, Spliterator.ORDERED) {
+
+			@Override
+			public boolean tryAdvance(Consumer<? super ResultSet> action) {
+				if (!rsIter.hasNext()) {
+					return false;
+				}
+				action.accept(rsIter.next());
+				return true;
+			}
+
+			/**
+			 * Every element is the same result set positioned at the current row, so the rows cannot be handed to other
+			 * threads. Calling parallel() on this stream therefore has no effect. See {@link #parallelStream}
+			 */
+			@Override
+			public Spliterator<ResultSet> trySplit() {
+				return null;
+			}
+
+		};
+		return StreamSupport.stream(rsSpliterator, false).onClose(rsIter::close);
+	}
+
+	/**
+	 * Streams over the rows of the given result set in parallel, mapping each row with a mapper from the given factory.
+	 * <br/><br/>
+	 * A single reader thread reads rows from the result set in chunks of the given size, copying out their raw column
+	 * values. Each chunk is then mapped on the thread which processes it, normally a worker of the common fork-join pool,
+	 * so that mapping work can use all cores while the driver is only ever used by the reader thread. A mapper is
+	 * created for each chunk, so mappers need not be thread-safe.
+	 * <br/><br/>
+	 * The result set and statement are closed by the reader thread once all rows have been read or the stream is closed,
+	 * after which the given callback (if any) is run
+	 */
+	public static <T> Stream<T> parallelStream(ResultSet rs,
+	                                           Statement statement,
+	                                           boolean cancelIfUnfinished,
+	                                           Runnable afterClose,
+	                                           Supplier<RowMapper<T>> mapperFactory,
+	                                           int chunkSize) throws SQLException {
+		int capacity = Math.max(2, ForkJoinPool.getCommonPoolParallelism() * 2);
+		return chunkedStream(rs, statement, cancelIfUnfinished, afterClose, mapperFactory, chunkSize, capacity, true);
+	}
+
+	/**
+	 * Streams over the rows of the given result set, with a background reader thread reading ahead of the consumer.
+	 * <br/><br/>
+	 * The reader copies rows out of the result set in chunks of the given size, and stays at most the given number of
+	 * chunks ahead, blocking while that many are waiting to be consumed. Rows are mapped on the consuming thread. Errors
+	 * raised by the reader are rethrown on the consuming thread when it reaches them.
+	 * <br/><br/>
+	 * The result set and statement are closed by the reader thread once all rows have been read or the stream is closed,
+	 * after which the given callback (if any) is run
+	 */
+	public static <T> Stream<T> prefetchingStream(ResultSet rs,
+	                                              Statement statement,
+	                                              boolean cancelIfUnfinished,
+	                                              Runnable afterClose,
+	                                              Supplier<RowMapper<T>> mapperFactory,
+	                                              int chunkSize,
+	                                              int chunksAhead) throws SQLException {
+		return chunkedStream(rs, statement, cancelIfUnfinished, afterClose, mapperFactory, chunkSize, chunksAhead, false);
+	}
+
+	private static <T> Stream<T> chunkedStream(ResultSet rs,
+	                                           Statement statement,
+	                                           boolean cancelIfUnfinished,
+	                                           Runnable afterClose,
+	                                           Supplier<RowMapper<T>> mapperFactory,
+	                                           int chunkSize,
+	                                           int capacity,
+	                                           boolean parallel) throws SQLException {
+		ResultIterator rsIter = new ResultIterator(rs, statement, cancelIfUnfinished, afterClose);
+		RowChunkReader reader;
+		try {
+			reader = new RowChunkReader(rsIter, rsIter::close, rs, statement, chunkSize, capacity).start();
+		} catch (SQLException | RuntimeException e) {
+			rsIter.close();
+			throw e;
+		}
+		return StreamSupport.stream(new ChunkedRowSpliterator<>(reader, mapperFactory), parallel).onClose(reader::close);
+	}
+
 }
@@ -0,0 +1,319 @@
+package com.tyler.sqlplus.mapper;
+
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A result set row as a map of column label to value.
+ * <br/><br/>
+ * The values of a row are held in a plain array, and the index of each column label is held once by a {@link Columns}
+ * dictionary shared by every row of the same result set, so a row costs little more than its values. Rows behave like a
+ * HashMap filled with the row's columns: where labels repeat, the last column wins, and rows can be modified freely.
+ * Entries are iterated in column order, followed by any keys added afterwards
+ */
+public final class Row extends AbstractMap<String, Object> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Marks a column which has been removed from this row. An enum so it stays a singleton when rows are deserialized */
+	private enum Absent { INSTANCE }
+
+	private static final Object ABSENT = Absent.INSTANCE;
+
+	private final Columns columns;
+
+	private final Object[] values;
+
+	/** Number of columns which have not been removed */
+	private int columnCount;
+
+	/** Keys which are not columns of the result set, created when the first such key is put */
+	private Map<String, Object> extras;
+
+	private transient Set<Entry<String, Object>> entrySet;
+
+	Row(Columns columns) {
+		this.columns = columns;
+		this.values = new Object[columns.labels.length];
+		this.columnCount = values.length;
+	}
+
+	/**
+	 * Reads the current row of the given result set
+	 */
+	static Row read(ResultSet rs, Columns columns) throws SQLException {
+		Row row = new Row(columns);
+		for (int slot = 0; slot < row.values.length; slot++) {
+			row.values[slot] = rs.getObject(columns.columnIndexes[slot]);
+		}
+		return row;
+	}
+
+	@Override
+	public int size() {
+		return columnCount + (extras == null ? 0 : extras.size());
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		int slot = columns.slotOf(key);
+		if (slot >= 0) {
+			return values[slot] != ABSENT;
+		}
+		return extras != null && extras.containsKey(key);
+	}
+
+	@Override
+	public Object get(Object key) {
+		int slot = columns.slotOf(key);
+		if (slot >= 0) {
+			Object value = values[slot];
+			return value == ABSENT ? null : value;
+		}
+		return extras == null ? null : extras.get(key);
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		int slot = columns.slotOf(key);
+		if (slot >= 0) {
+			Object previous = values[slot];
+			values[slot] = value;
+			if (previous == ABSENT) {
+				columnCount++;
+				return null;
+			}
+			return previous;
+		}
+		if (extras == null) {
+			extras = new LinkedHashMap<>();
+		}
+		return extras.put(key, value);
+	}
+
+	@Override
+	public Object remove(Object key) {
+		int slot = columns.slotOf(key);
+		if (slot >= 0) {
+			return removeSlot(slot);
+		}
+		return extras == null ? null : extras.remove(key);
+	}
+
+	private Object removeSlot(int slot) {
+		Object previous = values[slot];
+		if (previous == ABSENT) {
+			return null;
+		}
+		values[slot] = ABSENT;
+		columnCount--;
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(values, ABSENT);
+		columnCount = 0;
+		extras = null;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Entry<String, Object>>() {
+
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					return new EntryIterator();
+				}
+
+				@Override
+				public int size() {
+					return Row.this.size();
+				}
+
+				@Override
+				public void clear() {
+					Row.this.clear();
+				}
+
+			};
+		}
+		return entrySet;
+	}
+
+	/**
+	 * Iterates over the present columns in order, then over the extra keys
+	 */
+	private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+		private int nextSlot = nextPresentSlot(0);
+
+		private int lastSlot = -1;
+
+		private Iterator<Entry<String, Object>> extrasIterator;
+
+		private boolean lastFromExtras;
+
+		private int nextPresentSlot(int from) {
+			int slot = from;
+			while (slot < values.length && values[slot] == ABSENT) {
+				slot++;
+			}
+			return slot;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (nextSlot < values.length) {
+				return true;
+			}
+			if (extrasIterator == null && extras != null) {
+				extrasIterator = extras.entrySet().iterator();
+			}
+			return extrasIterator != null && extrasIterator.hasNext();
+		}
+
+		@Override
+		public Entry<String, Object> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			if (nextSlot < values.length) {
+				lastSlot = nextSlot;
+				lastFromExtras = false;
+				nextSlot = nextPresentSlot(nextSlot + 1);
+				return new SlotEntry(lastSlot);
+			}
+			lastSlot = -1;
+			lastFromExtras = true;
+			return extrasIterator.next();
+		}
+
+		@Override
+		public void remove() {
+			if (lastFromExtras) {
+				extrasIterator.remove();
+				lastFromExtras = false;
+			}
+			else if (lastSlot >= 0) {
+				removeSlot(lastSlot);
+				lastSlot = -1;
+			}
+			else {
+				throw new IllegalStateException();
+			}
+		}
+
+	}
+
+	private final class SlotEntry implements Entry<String, Object> {
+
+		private final int slot;
+
+		SlotEntry(int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		public String getKey() {
+			return columns.labels[slot];
+		}
+
+		@Override
+		public Object getValue() {
+			Object value = values[slot];
+			return value == ABSENT ? null : value;
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			Object previous = getValue();
+			if (values[slot] == ABSENT) {
+				columnCount++;
+			}
+			values[slot] = value;
+			return previous;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> other = (Entry<?, ?>) o;
+			Object value = getValue();
+			return getKey().equals(other.getKey()) && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			Object value = getValue();
+			return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+
+	}
+
+	/**
+	 * The distinct column labels of a result set, each with the index of the column it is read from and its position in
+	 * the values of a row. Shared by all rows of the result set
+	 */
+	static final class Columns implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String[] labels;
+
+		/** 1-based index of the column each label is read from: the last column with that label */
+		private final int[] columnIndexes;
+
+		private final Map<String, Integer> slot_byLabel;
+
+		Columns(ResultSetMetaData meta) throws SQLException {
+			int columnCount = meta.getColumnCount();
+			Map<String, Integer> slot_byLabel = new HashMap<>();
+			String[] labels = new String[columnCount];
+			int[] columnIndexes = new int[columnCount];
+			int slots = 0;
+			for (int col = 1; col <= columnCount; col++) {
+				String label = meta.getColumnLabel(col);
+				Integer slot = slot_byLabel.get(label);
+				if (slot == null) {
+					slot = slots++;
+					slot_byLabel.put(label, slot);
+					labels[slot] = label;
+				}
+				columnIndexes[slot] = col;
+			}
+			this.labels = Arrays.copyOf(labels, slots);
+			this.columnIndexes = Arrays.copyOf(columnIndexes, slots);
+			this.slot_byLabel = slot_byLabel;
+		}
+
+		/**
+		 * Returns the position of the given label in the values of a row, or -1 if it is not a column label
+		 */
+		int slotOf(Object label) {
+			Integer slot = slot_byLabel.get(label);
+			return slot == null ? -1 : slot;
+		}
+
+	}
+
+}
@@ -0,0 +1,195 @@
+package com.tyler.sqlplus.mapper;
+
+import com.tyler.sqlplus.exception.SQLRuntimeException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the rows of a result set on a dedicated thread, detaching them into fixed-size chunks which are handed off
+ * through a bounded queue. All access to the result set after construction happens on the reader thread, including
+ * closing it, so consumers on any number of other threads never touch the driver.
+ * <br/><br/>
+ * The reader blocks once the queue is full, so at most {@code capacity} chunks are held in memory at a time. Errors
+ * raised while reading are rethrown to the consumer when it reaches them
+ */
+final class RowChunkReader implements Runnable {
+
+	/** How often a reader blocked on a full queue checks whether it has been closed */
+	private static final long OFFER_POLL_MILLIS = 50;
+
+	/** Marks the end of the results in the queue */
+	private static final Object END = new Object();
+
+	private final Iterator<ResultSet> rows;
+
+	private final Runnable closeRows;
+
+	private final Statement statement;
+
+	private final DetachedResultSet.Columns columns;
+
+	private final int chunkSize;
+
+	private final BlockingQueue<Object> chunks;
+
+	private final Thread thread;
+
+	private volatile boolean closed;
+
+	/** Set once the consumer has taken the end of the results or an error, after which there is nothing left to take */
+	private boolean finished;
+
+	/**
+	 * @param rows Iterator over the rows of the result set, which will be advanced only by the reader thread
+	 * @param closeRows Closes the result set and its statement if not already closed. Always run on the reader thread
+	 * @param rs The result set, whose metadata is read on the calling thread before the reader thread starts
+	 * @param statement The statement which produced the result set, if any. The reader gives up waiting on a full queue
+	 *                  once the statement has been closed by something other than {@link #close()}, such as the
+	 *                  connection being closed. Sessions ending the transaction of an abandoned stream go through
+	 *                  {@link #close()} instead, so the statement is only ever closed by the reader thread
+	 */
+	RowChunkReader(Iterator<ResultSet> rows, Runnable closeRows, ResultSet rs, Statement statement, int chunkSize, int capacity) throws SQLException {
+		if (chunkSize < 1 || capacity < 1) {
+			throw new IllegalArgumentException("Chunk size and capacity must be at least 1");
+		}
+		this.rows = rows;
+		this.closeRows = closeRows;
+		this.statement = statement;
+		this.columns = new DetachedResultSet.Columns(rs.getMetaData());
+		this.chunkSize = chunkSize;
+		this.chunks = new ArrayBlockingQueue<>(capacity);
+		this.thread = new Thread(this, "sqlplus-row-reader");
+		this.thread.setDaemon(true);
+	}
+
+	RowChunkReader start() {
+		thread.start();
+		return this;
+	}
+
+	DetachedResultSet.Columns getColumns() {
+		return columns;
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (!closed) {
+				List<Object[]> chunk = new ArrayList<>(chunkSize);
+				while (chunk.size() < chunkSize && rows.hasNext()) {
+					chunk.add(DetachedResultSet.detachRow(rows.next(), columns.getCount()));
+				}
+				if (!chunk.isEmpty() && !hand(chunk)) {
+					return;
+				}
+				if (chunk.size() < chunkSize) {
+					hand(END);
+					return;
+				}
+			}
+		} catch (SQLException | RuntimeException e) {
+			hand(e);
+		} finally {
+			try {
+				closeRows.run();
+			} catch (RuntimeException e) {
+				hand(e);
+			}
+		}
+	}
+
+	/**
+	 * Places the given item on the queue, waiting for space as long as the reader is open
+	 * @return false if the reader was closed before the item could be queued
+	 */
+	private boolean hand(Object item) {
+		try {
+			while (!chunks.offer(item, OFFER_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				if (closed || isStatementClosed()) {
+					return false;
+				}
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private boolean isStatementClosed() {
+		try {
+			return statement != null && statement.isClosed();
+		} catch (SQLException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Takes the next chunk of detached rows, waiting for the reader if necessary
+	 * @return The next chunk, or null if all rows have been read
+	 * @throws SQLRuntimeException If reading the results failed
+	 */
+	List<Object[]> nextChunk() {
+		if (finished) {
+			return null;
+		}
+		Object item;
+		try {
+			while ((item = chunks.poll(OFFER_POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+				if (!thread.isAlive() && (item = chunks.poll()) == null) {
+					finished = true;
+					throw new SQLRuntimeException("Results were closed before all rows were read");
+				}
+				if (item != null) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			close();
+			throw new SQLRuntimeException("Interrupted while waiting for results", e);
+		}
+		if (item == END) {
+			finished = true;
+			return null;
+		}
+		if (item instanceof Exception) {
+			finished = true;
+			close();
+			throw item instanceof SQLRuntimeException ? (SQLRuntimeException) item : new SQLRuntimeException((Exception) item);
+		}
+		@SuppressWarnings("unchecked")
+		List<Object[]> chunk = (List<Object[]>) item;
+		return chunk;
+	}
+
+	/**
+	 * Stops the reader and waits for it to close the result set
+	 */
+	void close() {
+		closed = true;
+		if (Thread.currentThread() == thread || !thread.isAlive()) {
+			return;
+		}
+		boolean interrupted = false;
+		while (thread.isAlive()) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
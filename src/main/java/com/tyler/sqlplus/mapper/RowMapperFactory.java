@@ -5,7 +5,6 @@ import com.tyler.sqlplus.conversion.ConversionRegistry;
 import com.tyler.sqlplus.conversion.SQLConverter;
 import com.tyler.sqlplus.exception.ReflectionException;
 import com.tyler.sqlplus.exception.SQLRuntimeException;
-import com.tyler.sqlplus.function.Functions;
 import com.tyler.sqlplus.proxy.BeanProxy;
 import com.tyler.sqlplus.utility.Fields;
 import com.tyler.sqlplus.utility.ReflectionUtility;
@@ -22,6 +21,18 @@ import java.util.Map;
  */
 public final class RowMapperFactory {
 	
+	/** Declared fields of each class by name, so labels can be matched to fields without NoSuchFieldException */
+	private static final ClassValue<Map<String, Field>> DECLARED_FIELDS = new ClassValue<Map<String, Field>>() {
+		@Override
+		protected Map<String, Field> computeValue(Class<?> type) {
+			Map<String, Field> fields_byName = new HashMap<>();
+			for (Field field : type.getDeclaredFields()) {
+				fields_byName.put(field.getName(), field);
+			}
+			return fields_byName;
+		}
+	};
+
 	private RowMapperFactory() {}
 
 	/**
@@ -34,37 +45,88 @@ public final class RowMapperFactory {
 	 * object will be returned;
 	 */
 	public static <E> RowMapper<E> newMapper(Class<E> klass, ConversionRegistry conversionRegistry, Session session) {
+		return newMapper(klass, conversionRegistry, session, false);
+	}
+
+	/**
+	 * Creates a {@link RowMapper} as in {@link #newMapper(Class, ConversionRegistry, Session)}. If generate is true, POJOs
+	 * are mapped by a class generated for the column layout of the result set, falling back to reflection if the class
+	 * cannot be mapped by generated code
+	 */
+	public static <E> RowMapper<E> newMapper(Class<E> klass, ConversionRegistry conversionRegistry, Session session, boolean generate) {
 
 		// Scalar == value that cannot be reduced to a collection of simpler, primitive values.
 		// These values will have dedicated readers. Therefore, if a reader exists for the type, it is scalar
 		boolean isScalar = conversionRegistry.containsConverterFor(klass);
 		if (isScalar) {
 			SQLConverter<E> scalarConverter = conversionRegistry.getConverter(klass);
-			return rs -> {
-				if (rs.getMetaData().getColumnCount() > 1) {
-					throw new SQLRuntimeException("Cannot map query results with more than 1 column to scalar " + klass);
+			return new RowMapper<E>() {
+
+				private boolean columnCountChecked;
+
+				@Override
+				public E map(ResultSet rs) throws SQLException {
+					if (!columnCountChecked) {
+						if (rs.getMetaData().getColumnCount() > 1) {
+							throw new SQLRuntimeException("Cannot map query results with more than 1 column to scalar " + klass);
+						}
+						columnCountChecked = true;
+					}
+					return scalarConverter.read(rs, 1, klass);
 				}
-				return scalarConverter.read(rs, 1, klass);
+
 			};
 		}
 
-		// Maps are handled specially
-		if (Map.class.isAssignableFrom(klass)) {
-			return rs -> {
+		// Maps are handled specially. Plain maps are compact rows sharing the column labels of the result set
+		if (klass == Map.class) {
+			return new RowMapper<E>() {
+
+				private Row.Columns columns;
 
-				Map<String, Object> row;
-				try {
-					row = klass == Map.class ? new HashMap<>() : (Map<String, Object>) klass.newInstance();
-				} catch (InstantiationException | IllegalAccessException e) {
-					throw new ReflectionException("Could not instantiate instance of map implementation " + klass, e);
+				@Override
+				public E map(ResultSet rs) throws SQLException {
+					if (columns == null) {
+						columns = new Row.Columns(rs.getMetaData());
+					}
+					@SuppressWarnings("unchecked")
+					E row = (E) Row.read(rs, columns);
+					return row;
 				}
 
-				ResultSetMetaData meta = rs.getMetaData();
-				for (int col = 1, colMax = meta.getColumnCount(); col <= colMax; col++) {
-					row.put(meta.getColumnLabel(col), rs.getObject(col));
+			};
+		}
+
+		if (Map.class.isAssignableFrom(klass)) {
+			return new RowMapper<E>() {
+
+				private String[] labels;
+
+				@Override
+				public E map(ResultSet rs) throws SQLException {
+
+					if (labels == null) {
+						ResultSetMetaData meta = rs.getMetaData();
+						labels = new String[meta.getColumnCount()];
+						for (int col = 1; col <= labels.length; col++) {
+							labels[col - 1] = meta.getColumnLabel(col);
+						}
+					}
+
+					Map<String, Object> row;
+					try {
+						row = (Map<String, Object>) klass.newInstance();
+					} catch (InstantiationException | IllegalAccessException e) {
+						throw new ReflectionException("Could not instantiate instance of map implementation " + klass, e);
+					}
+
+					for (int col = 1; col <= labels.length; col++) {
+						row.put(labels[col - 1], rs.getObject(col));
+					}
+
+					return (E) row;
 				}
 
-				return (E) row;
 			};
 		}
 
@@ -72,23 +134,33 @@ public final class RowMapperFactory {
 
 		return new RowMapper<E>() {
 
-			private Map<Field, String> loadableFields;
+			/** How the columns of the result set map to fields, resolved on the first row */
+			private MappingPlan plan;
+
+			/** Mapper generated for the columns of the result set, if generation was requested and is possible */
+			private RowMapper<E> generatedMapper;
 			
 			@Override
 			public E map(ResultSet rs) throws SQLException {
 
-				if (loadableFields == null) {
-					loadableFields = determineLoadableFields(rs, klass);
+				if (plan == null) {
+					plan = MappingPlan.of(klass, rs.getMetaData(), conversionRegistry);
+					if (generate) {
+						generatedMapper = RowMapperGenerator.newMapper(klass, plan, shouldReturnProxy, session);
+					}
+				}
+
+				if (generatedMapper != null) {
+					return generatedMapper.map(rs);
 				}
 
 				E instance = shouldReturnProxy ? BeanProxy.create(klass, session) : ReflectionUtility.newInstance(klass);
 
-				loadableFields.forEach((loadableField, columnName) -> {
-					Class<?> fieldType = loadableField.getType();
-					SQLConverter converter = conversionRegistry.getConverter(loadableField);
-					Object fieldValue = Functions.runSQL(() -> converter.read(rs, columnName, fieldType));
-					Fields.set(loadableField, instance, fieldValue);
-				});
+				Field[] fields = plan.fields;
+				for (int i = 0; i < fields.length; i++) {
+					Object fieldValue = plan.converters[i].read(rs, plan.columnIndexes[i], fields[i].getType());
+					Fields.set(fields[i], instance, fieldValue);
+				}
 				
 				return instance;
 			}
@@ -97,6 +169,18 @@ public final class RowMapperFactory {
 		
 	}
 
+	/**
+	 * Maps each of the given column labels to its 1-based column index. Where labels repeat, the first column wins, as
+	 * it does when reading by label
+	 */
+	static Map<String, Integer> indexColumns(String[] columnLabels) {
+		Map<String, Integer> columnIndex_byLabel = new HashMap<>();
+		for (int col = columnLabels.length; col >= 1; col--) {
+			columnIndex_byLabel.put(columnLabels[col - 1], col);
+		}
+		return columnIndex_byLabel;
+	}
+
 	/**
 	 * Determines which fields, if any, can be mapped from the given result set for the given class type.
 	 * A field of the given class is considered mappable if either of the following conditions are true:
@@ -107,30 +191,51 @@ public final class RowMapperFactory {
 	 * instance, 'myField' would translate to the column name 'MY_FIELD'
 	 */
 	static Map<Field, String> determineLoadableFields(ResultSet rs, Class<?> type) throws SQLException {
+		ResultSetMetaData meta = rs.getMetaData();
+		String[] labels = new String[meta.getColumnCount()];
+		for (int col = 1; col <= labels.length; col++) {
+			labels[col - 1] = meta.getColumnLabel(col);
+		}
+		return determineLoadableFields(labels, type);
+	}
+
+	static Map<Field, String> determineLoadableFields(String[] columnLabels, Class<?> type) {
 		
+		Map<String, Field> declaredFields = DECLARED_FIELDS.get(type);
 		Map<Field, String> loadableFields = new HashMap<>();
-		ResultSetMetaData meta = rs.getMetaData();
 		
-		for (int col = 1, colMax = meta.getColumnCount(); col <= colMax; col++) {
-			
-			String columnLabel = meta.getColumnLabel(col);
-
-			Field fieldForLabel;
-			try {
-				fieldForLabel = type.getDeclaredField(columnLabel);
-			} catch (NoSuchFieldException e) {
-				try {
-					String convertedToCamelCase = Fields.underscoreToCamelCase(columnLabel);
-					fieldForLabel = type.getDeclaredField(convertedToCamelCase);
-				} catch (NoSuchFieldException e2) {
-					continue;
-				}
+		for (String columnLabel : columnLabels) {
+			Field fieldForLabel = declaredFields.get(columnLabel);
+			if (fieldForLabel == null) {
+				fieldForLabel = declaredFields.get(Fields.underscoreToCamelCase(columnLabel));
+			}
+			if (fieldForLabel != null) {
+				loadableFields.put(fieldForLabel, columnLabel);
 			}
-
-			loadableFields.put(fieldForLabel, columnLabel);
 		}
 		
 		return loadableFields;
 	}
+
+	/**
+	 * Returns the number of distinct class / column layouts whose mapping plans are currently cached
+	 */
+	public static int getMappingPlanCount() {
+		return MappingPlan.cache().size();
+	}
+
+	/**
+	 * Returns the number of times a row mapper found the mapping plan for its result set already cached
+	 */
+	public static long getMappingPlanHitCount() {
+		return MappingPlan.cache().getHitCount();
+	}
+
+	/**
+	 * Returns the number of times a row mapper had to plan the mapping for its result set
+	 */
+	public static long getMappingPlanMissCount() {
+		return MappingPlan.cache().getMissCount();
+	}
 	
 }
@@ -0,0 +1,394 @@
+package com.tyler.sqlplus.mapper;
+
+import com.tyler.sqlplus.Session;
+import com.tyler.sqlplus.annotation.Conversion;
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.conversion.SQLConverter;
+import com.tyler.sqlplus.utility.Fields;
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates {@link RowMapper} classes with Javassist which map a given column layout to a given class without
+ * reflection.
+ * <br/><br/>
+ * A generated mapper instantiates the class directly and stores each column through the field's setter if its class
+ * declares one, as {@link Fields#set} does, or straight into the field otherwise. Columns mapped to primitive fields
+ * with the default converter are read with the matching primitive getter, e.g. rs.getInt(3), and so are never boxed.
+ * Other columns are read through their converter.
+ * Fields which the generated class cannot access fall back to {@link Fields}.
+ * <br/><br/>
+ * Generated classes are kept by class and column layout for the life of the class, so each is only generated once.
+ * Layouts which cannot be generated are kept as well, so they go straight to reflection afterwards. At most
+ * {@value #MAX_LAYOUTS_PER_CLASS} layouts are generated per class, bounding the classes defined in its class loader
+ */
+final class RowMapperGenerator {
+
+	/** Maximum number of layouts of one class which are generated. Further layouts of the class are mapped reflectively */
+	static final int MAX_LAYOUTS_PER_CLASS = 64;
+
+	/**
+	 * Constructors of the generated mapper classes of each class by layout, or empty where generation failed so it is
+	 * not retried. Generated classes cannot be unloaded before the class loader they are defined in, so they are kept
+	 * for the life of the mapped class rather than evicted and generated again
+	 */
+	private static final ClassValue<Map<LayoutKey, Optional<Constructor<?>>>> MAPPER_CONSTRUCTORS =
+		new ClassValue<Map<LayoutKey, Optional<Constructor<?>>>>() {
+			@Override
+			protected Map<LayoutKey, Optional<Constructor<?>>> computeValue(Class<?> type) {
+				return new ConcurrentHashMap<>();
+			}
+		};
+
+	private static final AtomicInteger CLASS_COUNT = new AtomicInteger();
+
+	/** Getter used to read each primitive type when the column has the default converter for that type */
+	private static final Map<Class<?>, String> PRIMITIVE_GETTERS = new HashMap<>();
+	static {
+		PRIMITIVE_GETTERS.put(int.class, "getInt");
+		PRIMITIVE_GETTERS.put(long.class, "getLong");
+		PRIMITIVE_GETTERS.put(short.class, "getShort");
+		PRIMITIVE_GETTERS.put(byte.class, "getByte");
+		PRIMITIVE_GETTERS.put(float.class, "getFloat");
+		PRIMITIVE_GETTERS.put(double.class, "getDouble");
+		PRIMITIVE_GETTERS.put(boolean.class, "getBoolean");
+	}
+
+	private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<>();
+	static {
+		WRAPPERS.put(int.class, Integer.class);
+		WRAPPERS.put(long.class, Long.class);
+		WRAPPERS.put(short.class, Short.class);
+		WRAPPERS.put(byte.class, Byte.class);
+		WRAPPERS.put(float.class, Float.class);
+		WRAPPERS.put(double.class, Double.class);
+		WRAPPERS.put(boolean.class, Boolean.class);
+		WRAPPERS.put(char.class, Character.class);
+	}
+
+	private RowMapperGenerator() {}
+
+	/**
+	 * Returns a generated mapper for the given class and the columns of the given result set, or null if the class cannot
+	 * be mapped by generated code, in which case the caller should map it reflectively
+	 */
+	static <E> RowMapper<E> newMapper(Class<E> klass, MappingPlan mappingPlan, boolean returnProxy, Session session) {
+
+		if (klass.getClassLoader() == null || !isAccessibleFromPackage(klass, klass)) {
+			return null;
+		}
+
+		List<ColumnPlan> plans = plan(klass, mappingPlan);
+		LayoutKey key = new LayoutKey(klass, returnProxy, plans);
+
+		// Code generation is an optimization, so fall back to reflection if it is not possible here (for instance on
+		// JDK 9+, where Javassist cannot define classes in the entity's class loader)
+		Map<LayoutKey, Optional<Constructor<?>>> constructors = MAPPER_CONSTRUCTORS.get(klass);
+		Optional<Constructor<?>> generated = constructors.get(key);
+		if (generated == null) {
+			if (constructors.size() >= MAX_LAYOUTS_PER_CLASS) {
+				return null;
+			}
+			generated = constructors.computeIfAbsent(key, RowMapperGenerator::tryGenerate);
+		}
+		if (!generated.isPresent()) {
+			return null;
+		}
+		Constructor<?> constructor = generated.get();
+
+		int columns = plans.size();
+		SQLConverter<?>[] converters = new SQLConverter<?>[columns];
+		Class<?>[] types = new Class<?>[columns];
+		Field[] fields = new Field[columns];
+		for (int i = 0; i < columns; i++) {
+			converters[i] = plans.get(i).converter;
+			types[i] = plans.get(i).field.getType();
+			fields[i] = plans.get(i).field;
+		}
+
+		try {
+			@SuppressWarnings("unchecked")
+			RowMapper<E> mapper = (RowMapper<E>) constructor.newInstance(converters, types, fields, klass, session);
+			return mapper;
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	private static List<ColumnPlan> plan(Class<?> klass, MappingPlan mappingPlan) {
+		ConversionRegistry defaults = ConversionRegistry.getDefault();
+		List<ColumnPlan> plans = new ArrayList<>();
+		for (int i = 0; i < mappingPlan.fields.length; i++) {
+			Field field = mappingPlan.fields[i];
+			SQLConverter<?> converter = mappingPlan.converters[i];
+			Class<?> type = field.getType();
+			boolean readDirectly = PRIMITIVE_GETTERS.containsKey(type) &&
+			                       !field.isAnnotationPresent(Conversion.class) &&
+			                       converter == defaults.getConverter(type);
+			plans.add(new ColumnPlan(field, mappingPlan.columnIndexes[i], converter, readDirectly, getStore(klass, field)));
+		}
+		plans.sort((plan1, plan2) -> Integer.compare(plan1.columnIndex, plan2.columnIndex));
+		return plans;
+	}
+
+	/**
+	 * Determines how the generated class can store a value into the given field: directly, through a setter, or only
+	 * reflectively. A field is stored through its setter exactly when {@link Fields#set} would use one, so generated
+	 * and reflective mapping run the same user code
+	 */
+	private static Store getStore(Class<?> klass, Field field) {
+		int modifiers = field.getModifiers();
+		boolean typeAccessible = field.getType().isPrimitive() || isAccessibleFromPackage(field.getType(), klass);
+		if (!typeAccessible) {
+			return Store.REFLECTIVE;
+		}
+		Method setter = Fields.getSetter(field);
+		if (setter != null) {
+			return isCallableFromPackage(setter, klass) ? Store.SETTER : Store.REFLECTIVE;
+		}
+		if (Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers)) {
+			return Store.REFLECTIVE;
+		}
+		boolean fieldAccessible = !Modifier.isPrivate(modifiers) && isAccessibleFromPackage(field.getDeclaringClass(), klass) &&
+		                          (Modifier.isPublic(modifiers) || samePackage(field.getDeclaringClass(), klass));
+		return fieldAccessible ? Store.FIELD : Store.REFLECTIVE;
+	}
+
+	/**
+	 * Whether code in the package of the given class can call the given method on an instance of that class
+	 */
+	private static boolean isCallableFromPackage(Method method, Class<?> fromClass) {
+		int modifiers = method.getModifiers();
+		if (Modifier.isPrivate(modifiers)) {
+			return false;
+		}
+		if (Modifier.isPublic(modifiers)) {
+			return isAccessibleFromPackage(method.getDeclaringClass(), fromClass);
+		}
+		return samePackage(method.getDeclaringClass(), fromClass);
+	}
+
+	/**
+	 * Whether code in the package of the given class can refer to the given type by name
+	 */
+	private static boolean isAccessibleFromPackage(Class<?> type, Class<?> fromClass) {
+		if (type.isArray()) {
+			return isAccessibleFromPackage(type.getComponentType(), fromClass);
+		}
+		if (type.isPrimitive()) {
+			return true;
+		}
+		for (Class<?> enclosing = type; enclosing != null; enclosing = enclosing.getDeclaringClass()) {
+			int modifiers = enclosing.getModifiers();
+			if (Modifier.isPrivate(modifiers)) {
+				return false;
+			}
+			if (!Modifier.isPublic(modifiers) && !samePackage(enclosing, fromClass)) {
+				return false;
+			}
+		}
+		return !type.isAnonymousClass() && !type.isLocalClass();
+	}
+
+	private static boolean samePackage(Class<?> class1, Class<?> class2) {
+		return class1.getClassLoader() == class2.getClassLoader() && Objects.equals(packageOf(class1), packageOf(class2));
+	}
+
+	private static String packageOf(Class<?> klass) {
+		String name = klass.getName();
+		int lastDot = name.lastIndexOf('.');
+		return lastDot < 0 ? "" : name.substring(0, lastDot);
+	}
+
+	private static Optional<Constructor<?>> tryGenerate(LayoutKey key) {
+		try {
+			return Optional.of(generate(key));
+		} catch (RuntimeException | LinkageError e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Generates and loads a mapper class for the given layout, returning its constructor
+	 */
+	private static Constructor<?> generate(LayoutKey key) {
+
+		Class<?> klass = key.klass;
+		String entity = sourceName(klass);
+		String mapperName = klass.getName() + "$$SQLPlusRowMapper$" + CLASS_COUNT.incrementAndGet();
+
+		StringBuilder map = new StringBuilder();
+		map.append("public Object map(java.sql.ResultSet rs) throws java.sql.SQLException {\n");
+		if (key.returnProxy) {
+			map.append(entity).append(" e = (").append(entity).append(") com.tyler.sqlplus.proxy.BeanProxy.create(entityClass, session);\n");
+		}
+		else if (hasAccessibleNoArgConstructor(klass)) {
+			map.append(entity).append(" e = new ").append(entity).append("();\n");
+		}
+		else {
+			map.append(entity).append(" e = (").append(entity).append(") com.tyler.sqlplus.utility.ReflectionUtility.newInstance(entityClass);\n");
+		}
+
+		for (int i = 0; i < key.plans.size(); i++) {
+			ColumnPlan plan = key.plans.get(i);
+			Class<?> type = plan.field.getType();
+			String converterRead = "converters[" + i + "].read(rs, " + plan.columnIndex + ", types[" + i + "])";
+			switch (plan.store) {
+				case REFLECTIVE:
+					map.append("com.tyler.sqlplus.utility.Fields.set(fields[").append(i).append("], e, ").append(converterRead).append(");\n");
+					break;
+				default:
+					String value = plan.readDirectly
+						? "rs." + PRIMITIVE_GETTERS.get(type) + "(" + plan.columnIndex + ")"
+						: cast(converterRead, type);
+					if (plan.store == Store.FIELD) {
+						map.append("e.").append(plan.field.getName()).append(" = ").append(value).append(";\n");
+					}
+					else {
+						String fieldName = plan.field.getName();
+						map.append("e.set").append(Character.toUpperCase(fieldName.charAt(0))).append(fieldName.substring(1))
+						   .append("(").append(value).append(");\n");
+					}
+			}
+		}
+		map.append("return e;\n}");
+
+		try {
+			ClassPool pool = new ClassPool(true);
+			pool.insertClassPath(new LoaderClassPath(klass.getClassLoader()));
+			pool.insertClassPath(new ClassClassPath(RowMapper.class));
+
+			CtClass mapperClass = pool.makeClass(mapperName);
+			mapperClass.addInterface(pool.get(RowMapper.class.getName()));
+			mapperClass.addField(CtField.make("private final com.tyler.sqlplus.conversion.SQLConverter[] converters;", mapperClass));
+			mapperClass.addField(CtField.make("private final Class[] types;", mapperClass));
+			mapperClass.addField(CtField.make("private final java.lang.reflect.Field[] fields;", mapperClass));
+			mapperClass.addField(CtField.make("private final Class entityClass;", mapperClass));
+			mapperClass.addField(CtField.make("private final com.tyler.sqlplus.Session session;", mapperClass));
+			mapperClass.addConstructor(CtNewConstructor.make(
+				"public " + mapperName.substring(mapperName.lastIndexOf('.') + 1) + "(" +
+				"com.tyler.sqlplus.conversion.SQLConverter[] converters, Class[] types, java.lang.reflect.Field[] fields, " +
+				"Class entityClass, com.tyler.sqlplus.Session session) {\n" +
+				"this.converters = $1; this.types = $2; this.fields = $3; this.entityClass = $4; this.session = $5;\n}",
+				mapperClass));
+			mapperClass.addMethod(CtNewMethod.make(map.toString(), mapperClass));
+
+			Class<?> generated = mapperClass.toClass(klass.getClassLoader(), klass.getProtectionDomain());
+			mapperClass.detach();
+			return generated.getConstructor(SQLConverter[].class, Class[].class, Field[].class, Class.class, Session.class);
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not generate row mapper for " + klass, e);
+		}
+	}
+
+	/**
+	 * Casts an expression of type Object to the given type, unboxing it if the type is primitive
+	 */
+	private static String cast(String expression, Class<?> type) {
+		if (type.isPrimitive()) {
+			Class<?> wrapper = WRAPPERS.get(type);
+			return "((" + wrapper.getName() + ") " + expression + ")." + type.getName() + "Value()";
+		}
+		return "(" + sourceName(type) + ") " + expression;
+	}
+
+	private static String sourceName(Class<?> type) {
+		if (type.isArray()) {
+			return sourceName(type.getComponentType()) + "[]";
+		}
+		return type.getName();
+	}
+
+	private static boolean hasAccessibleNoArgConstructor(Class<?> klass) {
+		if (Modifier.isAbstract(klass.getModifiers()) || (klass.isMemberClass() && !Modifier.isStatic(klass.getModifiers()))) {
+			return false;
+		}
+		try {
+			return !Modifier.isPrivate(klass.getDeclaredConstructor().getModifiers());
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	private enum Store { FIELD, SETTER, REFLECTIVE }
+
+	/**
+	 * How the generated code maps a single column to a field
+	 */
+	private static final class ColumnPlan {
+
+		private final Field field;
+		private final int columnIndex;
+		private final SQLConverter<?> converter;
+		private final boolean readDirectly;
+		private final Store store;
+
+		ColumnPlan(Field field, int columnIndex, SQLConverter<?> converter, boolean readDirectly, Store store) {
+			this.field = field;
+			this.columnIndex = columnIndex;
+			this.converter = converter;
+			this.readDirectly = readDirectly;
+			this.store = store;
+		}
+
+		/**
+		 * Everything about this plan which affects the generated code. The converter itself is passed to the mapper
+		 */
+		private String signature() {
+			return field.getDeclaringClass().getName() + "." + field.getName() + "@" + columnIndex +
+			       (readDirectly ? "/direct" : "/converter") + "/" + store;
+		}
+
+	}
+
+	private static final class LayoutKey {
+
+		private final Class<?> klass;
+		private final boolean returnProxy;
+		private final List<ColumnPlan> plans;
+		private final String signature;
+
+		LayoutKey(Class<?> klass, boolean returnProxy, List<ColumnPlan> plans) {
+			this.klass = klass;
+			this.returnProxy = returnProxy;
+			this.plans = plans;
+			StringBuilder signature = new StringBuilder();
+			plans.forEach(plan -> signature.append(plan.signature()).append(';'));
+			this.signature = signature.toString();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof LayoutKey)) {
+				return false;
+			}
+			LayoutKey other = (LayoutKey) o;
+			return klass == other.klass && returnProxy == other.returnProxy && signature.equals(other.signature);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * klass.hashCode() + signature.hashCode() + (returnProxy ? 1 : 0);
+		}
+
+	}
+
+}
@@ -75,8 +75,26 @@ public class TransactionalService {
 			throw new AnnotationConfigurationException("@" + SQLQuery.class.getSimpleName() + " annotated method " + queryMethod + " must declare a return type");
 		}
 		
-		String sql = queryMethod.getAnnotation(SQLQuery.class).value();
-		Query query = session.createQuery(sql);
+		SQLQuery queryAnnot = queryMethod.getAnnotation(SQLQuery.class);
+		Query query = session.createQuery(queryAnnot.value());
+		if (queryAnnot.fetchSize() != -1) {
+			query.setFetchSize(queryAnnot.fetchSize());
+		}
+		if (queryAnnot.maxRows() != -1) {
+			query.setMaxRows(queryAnnot.maxRows());
+		}
+		if (queryAnnot.resultSetType() != -1) {
+			query.setResultSetType(queryAnnot.resultSetType());
+		}
+		if (queryAnnot.resultSetConcurrency() != -1) {
+			query.setResultSetConcurrency(queryAnnot.resultSetConcurrency());
+		}
+		if (queryAnnot.streaming() != SQLQuery.Streaming.DEFAULT) {
+			query.setStreaming(queryAnnot.streaming() == SQLQuery.Streaming.ON);
+		}
+		if (queryAnnot.prefetch() > 0) {
+			query.setPrefetch(queryAnnot.prefetch());
+		}
 		bindParams(query, queryMethod.getParameters(), invokeArgs, session, null);
 		
 		Type genericReturnType = queryMethod.getGenericReturnType();
@@ -107,7 +125,9 @@ public class TransactionalService {
 			keyProvider = new QueryKeyProvider<>(updateAnnot.keyQuery(), keyField.get().getType());
 		}
 
-		Query updateQuery = session.createQuery(updateAnnot.value());
+		Query updateQuery = session.createQuery(updateAnnot.value())
+		                           .setBatchChunkSize(updateAnnot.batchChunkSize())
+		                           .setRewriteBatchedInserts(updateAnnot.rewriteBatchedInserts());
 		bindParams(updateQuery, queryMethod.getParameters(), invokeArgs, session, keyProvider);
 
 		switch (updateAnnot.returnInfo()) {
@@ -0,0 +1,127 @@
+package com.tyler.sqlplus.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded cache which can be read and populated concurrently without locking.
+ * <br/><br/>
+ * Recency is tracked approximately: each entry records the time it was last read, and once the cache grows past its
+ * maximum size the least recently read entries are evicted in bulk. Values may occasionally be computed more than once
+ * when several threads miss on the same key at the same time, so loaders should be side-effect free
+ */
+public final class ConcurrentLRUCache<K, V> {
+
+	/** Fraction of the maximum size which is kept when the cache is trimmed */
+	private static final double TRIM_RATIO = 0.75;
+
+	private final int maxSize;
+	private final ConcurrentHashMap<K, Node<V>> entries = new ConcurrentHashMap<>();
+	private final Object evictionLock = new Object();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public ConcurrentLRUCache(int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Cache size must be at least 1");
+		}
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the cached value for the given key, computing and caching it with the given loader if not present
+	 */
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+
+		Node<V> node = entries.get(key);
+		if (node != null) {
+			node.lastAccess = System.nanoTime();
+			hits.increment();
+			return node.value;
+		}
+
+		misses.increment();
+		Node<V> newNode = new Node<>(loader.apply(key));
+		Node<V> existing = entries.putIfAbsent(key, newNode);
+		if (existing != null) {
+			return existing.value;
+		}
+
+		if (entries.size() > maxSize) {
+			trim();
+		}
+		return newNode.value;
+	}
+
+	public V get(K key) {
+		Node<V> node = entries.get(key);
+		if (node == null) {
+			return null;
+		}
+		node.lastAccess = System.nanoTime();
+		return node.value;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Evicts the least recently read entries until the cache is back down to a fraction of its maximum size
+	 */
+	private void trim() {
+		synchronized (evictionLock) {
+			int overflow = entries.size() - (int) (maxSize * TRIM_RATIO);
+			if (entries.size() <= maxSize || overflow <= 0) {
+				return;
+			}
+			List<Map.Entry<K, Node<V>>> byAge = new ArrayList<>(entries.entrySet());
+			byAge.sort((e1, e2) -> Long.compare(e1.getValue().lastAccess, e2.getValue().lastAccess));
+			for (int i = 0; i < overflow && i < byAge.size(); i++) {
+				Map.Entry<K, Node<V>> eldest = byAge.get(i);
+				if (entries.remove(eldest.getKey(), eldest.getValue())) {
+					evictions.increment();
+				}
+			}
+		}
+	}
+
+	private static class Node<V> {
+
+		private final V value;
+		private volatile long lastAccess;
+
+		Node(V value) {
+			this.value = value;
+			this.lastAccess = System.nanoTime();
+		}
+
+	}
+
+}
@@ -1,71 +1,105 @@
 package com.tyler.sqlplus.utility;
 
 import com.tyler.sqlplus.exception.ReflectionException;
-import com.tyler.sqlplus.function.Functions;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Utilities for working with {@link Field} objects
  */
 public final class Fields {
 
-	// It is important to cache reflective data since it is costly to lookup
-	private static final Map<Field, Functions.ThrowingFunction<Object, Object>> FIELD_GETTER = new HashMap<>();
-	private static final Map<Field, Functions.ThrowingBiConsumer<Object, Object>> FIELD_SETTER = new HashMap<>();
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/**
+	 * Accessors for the declared fields of each class by field name. It is important to cache reflective data since it is
+	 * costly to lookup; the accessors are method handles, so reads and writes skip reflective access checks and argument
+	 * arrays.
+	 * <br/><br/>
+	 * The handles are held in ordinary fields rather than static finals, so the JIT treats them as variables and cannot
+	 * inline through invokeExact into the getter, setter or field access. Each call is an indirect call, cheaper than
+	 * Method.invoke but not free. Spinning LambdaMetafactory functions instead would need private access to every mapped
+	 * class, which Java 8 lookups do not allow. Callers which need inlined access should use generated row mappers
+	 */
+	private static final ClassValue<Map<String, Accessor>> ACCESSORS = new ClassValue<Map<String, Accessor>>() {
+		@Override
+		protected Map<String, Accessor> computeValue(Class<?> type) {
+			Map<String, Accessor> accessors = new HashMap<>();
+			for (Field field : type.getDeclaredFields()) {
+				accessors.put(field.getName(), new Accessor(field));
+			}
+			return accessors;
+		}
+	};
 	
 	private Fields() {}
 
+	/**
+	 * Reads the value of the given field through its javabeans getter if its class declares one, or directly otherwise
+	 */
 	public static Object get(Field field, Object instance) {
+		return get(accessor(field), instance);
+	}
 
-		Functions.ThrowingFunction<Object, Object> getterFunction = FIELD_GETTER.computeIfAbsent(field, f -> {
-			String capFieldName = capitalize(field.getName());
-			try {
-				Method getter = instance.getClass().getDeclaredMethod("get" + capFieldName);
-				return getter::invoke; 
-			}
-			catch (NoSuchMethodException e1) {
-				try {
-					Method getter = instance.getClass().getDeclaredMethod("is" + capFieldName);
-					return getter::invoke;
-				}
-				catch (NoSuchMethodException e2) {
-					field.setAccessible(true);
-					return field::get;
-				}
-			}
-		});
-		
+	/**
+	 * Returns a function which reads the given field as {@link #get(Field, Object)} does, with the accessor for the field
+	 * already resolved. Useful for callers which read the same field from many objects
+	 */
+	public static Function<Object, Object> getter(Field field) {
+		Accessor accessor = accessor(field);
+		return instance -> get(accessor, instance);
+	}
+
+	private static Object get(Accessor accessor, Object instance) {
 		try {
-			return getterFunction.apply(instance);
-		} catch (Exception e) {
-			throw new ReflectionException(e);
+			return (Object) accessor.getter.invokeExact(instance);
+		} catch (ReflectionException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new ReflectionException(e instanceof Exception ? (Exception) e : new RuntimeException(e));
 		}
 	}
 
+	/**
+	 * Writes the given value to the given field through its javabeans setter if its class declares one, or directly
+	 * otherwise
+	 */
 	public static void set(Field field, Object instance, Object value) {
-		
-		Functions.ThrowingBiConsumer<Object, Object> setterFunction = FIELD_SETTER.computeIfAbsent(field, f -> {
-			try {
-				Method setter = instance.getClass().getDeclaredMethod("set" + capitalize(field.getName()));
-				return setter::invoke; 
-			}
-			catch (NoSuchMethodException e) {
-				field.setAccessible(true);
-				return field::set;
-			}
-		});
-		
 		try {
-			setterFunction.accept(instance, value);
-		} catch (Exception e) {
-			throw new ReflectionException(e);
+			accessor(field).setter.invokeExact(instance, value);
+		} catch (ReflectionException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new ReflectionException(e instanceof Exception ? (Exception) e : new RuntimeException(e));
 		}
 	}
 
+	/**
+	 * Returns the javabeans setter which {@link #set(Field, Object, Object)} writes the given field through, or null if
+	 * the field's class does not declare one and the field is written directly
+	 */
+	public static Method getSetter(Field field) {
+		try {
+			Method setter = field.getDeclaringClass().getDeclaredMethod("set" + capitalize(field.getName()), field.getType());
+			return Modifier.isStatic(setter.getModifiers()) ? null : setter;
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private static Accessor accessor(Field field) {
+		return ACCESSORS.get(field.getDeclaringClass()).get(field.getName());
+	}
+
 	/**
 	 * Attempts to extract the field name referred to by the javabeans style getter / setter.
 	 * Standard getter names begin with either 'get' or 'is'. Standard setter names begin with 'set'
@@ -111,4 +145,75 @@ public final class Fields {
 		return String.valueOf(s.charAt(0)).toUpperCase() + s.substring(1);
 	}
 	
+	/**
+	 * Getter and setter method handles for a field, adapted to take and return Objects
+	 */
+	private static final class Accessor {
+
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		Accessor(Field field) {
+			this.getter = accessorHandle(field, true);
+			this.setter = accessorHandle(field, false);
+		}
+
+		/**
+		 * Creates the getter or setter handle for the given field. If the field cannot be accessed, the handle throws the
+		 * access error when invoked instead, so one inaccessible field does not affect the rest of its class
+		 */
+		private static MethodHandle accessorHandle(Field field, boolean getter) {
+			MethodType type = getter ? GETTER_TYPE : SETTER_TYPE;
+			try {
+				Class<?> declaringClass = field.getDeclaringClass();
+				String capFieldName = capitalize(field.getName());
+				MethodHandles.Lookup lookup = MethodHandles.lookup();
+				field.setAccessible(true);
+
+				Method accessorMethod;
+				if (getter) {
+					accessorMethod = findAccessorMethod(declaringClass, "get" + capFieldName);
+					if (accessorMethod == null) {
+						accessorMethod = findAccessorMethod(declaringClass, "is" + capFieldName);
+					}
+				} else {
+					accessorMethod = getSetter(field);
+					if (accessorMethod != null) {
+						accessorMethod.setAccessible(true);
+					}
+				}
+				if (accessorMethod != null) {
+					return lookup.unreflect(accessorMethod).asType(type);
+				}
+
+				MethodHandle handle = getter ? lookup.unreflectGetter(field) : lookup.unreflectSetter(field);
+				if (Modifier.isStatic(field.getModifiers())) {
+					handle = MethodHandles.dropArguments(handle, 0, Object.class);
+				}
+				return handle.asType(type);
+			} catch (IllegalAccessException | RuntimeException e) {
+				ReflectionException error = new ReflectionException("Could not access field " + field, e);
+				MethodHandle thrower = MethodHandles.throwException(type.returnType(), ReflectionException.class).bindTo(error);
+				return MethodHandles.dropArguments(thrower, 0, type.parameterList());
+			}
+		}
+
+		/**
+		 * Finds the instance method of the given class with the given name and parameter types, made accessible
+		 */
+		private static Method findAccessorMethod(Class<?> declaringClass, String name, Class<?>... paramTypes) {
+			try {
+				Method method = declaringClass.getDeclaredMethod(name, paramTypes);
+				if (Modifier.isStatic(method.getModifiers())) {
+					return null;
+				}
+				method.setAccessible(true);
+				return method;
+			} catch (NoSuchMethodException e) {
+				return null;
+			}
+		}
+
+	}
+
 }
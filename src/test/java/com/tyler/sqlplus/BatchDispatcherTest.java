@@ -0,0 +1,64 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.exception.SQLRuntimeException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
+import static org.junit.Assert.*;
+
+public class BatchDispatcherTest {
+
+	@Test
+	public void batchesAreCappedByRowsAndBytesAndProcessedInOrder() throws Exception {
+		List<List<String>> batches = new ArrayList<>();
+		BatchOptions<String> options = new BatchOptions<String>().setMaxRows(3).setMaxBytes(6, String::length);
+		try (BatchDispatcher<String> dispatcher = new BatchDispatcher<>(options, batches::add)) {
+			for (String result : Arrays.asList("a", "b", "c", "d", "eeee", "fffffff", "g")) {
+				assertTrue(dispatcher.add(result));
+			}
+			dispatcher.flush();
+		}
+		assertEquals(
+			Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("d", "eeee"), Collections.singletonList("fffffff"), Collections.singletonList("g")),
+			batches);
+	}
+
+	@Test
+	public void eachBatchIsANewUnmodifiableList() throws Exception {
+		List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+		try (BatchDispatcher<Integer> dispatcher = new BatchDispatcher<>(new BatchOptions<Integer>().setMaxRows(2), batches::add)) {
+			for (int i = 0; i < 4; i++) {
+				dispatcher.add(i);
+			}
+		}
+		assertEquals(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(2, 3)), batches);
+		assertThrows(() -> batches.get(0).add(5), UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void firstFailureStopsDispatchAndIsRethrown() throws Exception {
+		AtomicInteger processed = new AtomicInteger();
+		BatchOptions<Integer> options = new BatchOptions<Integer>().setMaxRows(1).setConsumerThreads(2).setMaxInFlight(2);
+		assertThrows(() -> {
+			try (BatchDispatcher<Integer> dispatcher = new BatchDispatcher<>(options, batch -> {
+				if (batch.get(0) == 3) {
+					throw new IllegalStateException("Bad batch");
+				}
+				processed.incrementAndGet();
+			})) {
+				int next = 0;
+				while (next < 1000 && dispatcher.add(next)) {
+					next++;
+				}
+			}
+		}, SQLRuntimeException.class);
+		assertTrue(processed.get() < 1000);
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.base.AbstractDatabase.Address;
+import com.tyler.sqlplus.base.DatabaseTest;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(Parameterized.class)
+public class KeysetScanTest extends DatabaseTest {
+
+	@Test
+	public void scanReadsEveryRowAcrossPages() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Oak Street', 'Thistown', 'NY', '67890')",
+			"insert into address (street, city, state, zip) values('Pine Street', 'Thattown', 'WI', '11111')",
+			"insert into address (street, city, state, zip) values('Ash Street', 'Anytown', 'MN', '22222')"
+		);
+		List<String> streets = db.getSQLPlus()
+			.keysetScan("select * from address", Address.class)
+			.setKeyColumns("address_id")
+			.setPageSize(2)
+			.stream()
+			.map(address -> address.street)
+			.collect(toList());
+		assertEquals(Arrays.asList("Maple Street", "Elm Street", "Oak Street", "Pine Street", "Ash Street"), streets);
+	}
+
+	@Test
+	public void scanPagesByCompositeKeys() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Oak Street', 'Thistown', 'MN', '67890')",
+			"insert into address (street, city, state, zip) values('Pine Street', 'Thattown', 'WI', '11111')",
+			"insert into address (street, city, state, zip) values('Ash Street', 'Anytown', 'MN', '22222')"
+		);
+		List<String> streets = db.getSQLPlus()
+			.keysetScan("select * from address where state <> :excludedState", Address.class)
+			.setParameter("excludedState", "WI")
+			.setKeyColumns("state", "street")
+			.setPageSize(2)
+			.stream()
+			.map(address -> address.street)
+			.collect(toList());
+		assertEquals(Arrays.asList("Elm Street", "Ash Street", "Maple Street", "Oak Street"), streets);
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.tyler.sqlplus;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ParamBatchesTest {
+
+	@Test
+	public void batchesGrowPastInitialCapacity() throws Exception {
+		ParamBatches batches = new ParamBatches(2);
+		for (int i = 0; i < 100; i++) {
+			batches.set(1, i);
+			batches.set(2, "row" + i);
+			assertTrue(batches.isCurrentBatchComplete());
+			batches.finishBatch();
+		}
+		assertEquals(100, batches.size());
+		assertEquals(57, batches.get(57, 1));
+		assertEquals("row99", batches.get(99, 2));
+	}
+
+	@Test
+	public void runningBatchTracksWhichParametersAreSet() throws Exception {
+		ParamBatches batches = new ParamBatches(3);
+		assertFalse(batches.isCurrentBatchStarted());
+
+		batches.set(2, "b");
+		batches.set(2, "b2");
+		assertTrue(batches.isCurrentBatchStarted());
+		assertFalse(batches.isCurrentBatchComplete());
+		assertTrue(batches.isSet(2));
+		assertFalse(batches.isSet(1));
+
+		batches.set(1, null);
+		batches.set(3, "c");
+		assertTrue(batches.isCurrentBatchComplete());
+		batches.finishBatch();
+		assertFalse(batches.isCurrentBatchStarted());
+		assertFalse(batches.isSet(2));
+		assertEquals(Arrays.asList(null, "b2", "c"), batches.values());
+	}
+
+	@Test
+	public void clearingFinishedBatchesKeepsTheRunningBatch() throws Exception {
+		ParamBatches batches = new ParamBatches(2);
+		batches.set(1, "a");
+		batches.set(2, "b");
+		batches.finishBatch();
+		batches.set(2, "d");
+
+		batches.clearFinished();
+		assertEquals(0, batches.size());
+		assertEquals(Arrays.asList("d"), batches.values());
+
+		batches.set(1, "c");
+		batches.finishBatch();
+		assertEquals(Arrays.asList("c", "d"), batches.values());
+	}
+
+}
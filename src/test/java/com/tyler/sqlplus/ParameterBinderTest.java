@@ -0,0 +1,68 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.conversion.ConversionRegistry;
+import com.tyler.sqlplus.conversion.IndexedSQLConverter;
+import com.tyler.sqlplus.conversion.SQLConverter;
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ParameterBinderTest {
+
+	@Test
+	public void nullsAreBoundWithTheTypeOfThePreviousValue() throws Exception {
+		PreparedStatement ps = mock(PreparedStatement.class);
+		ParameterBinder binder = new ParameterBinder(ConversionRegistry.getDefault());
+
+		binder.bind(ps, 1, null);
+		binder.bind(ps, 1, 5);
+		binder.bind(ps, 1, null);
+		binder.bind(ps, 1, "text");
+		binder.bind(ps, 1, null);
+
+		verify(ps).setNull(1, Types.NULL);
+		verify(ps).setInt(1, 5);
+		verify(ps).setNull(1, Types.INTEGER);
+		verify(ps).setString(1, "text");
+		verify(ps).setNull(1, Types.VARCHAR);
+	}
+
+	static class Money {
+	}
+
+	@Test
+	public void nullsAreNotPassedToConverters() throws Exception {
+		SQLConverter<Money> moneyConverter = new IndexedSQLConverter<Money>() {
+
+			@Override
+			public Class<Money> getConvertedClass() {
+				return Money.class;
+			}
+
+			@Override
+			public Money read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
+				return new Money();
+			}
+
+			@Override
+			public void write(PreparedStatement ps, int parameterIndex, Money obj) throws SQLException {
+				ps.setString(parameterIndex, obj.toString());
+			}
+
+		};
+		PreparedStatement ps = mock(PreparedStatement.class);
+		ParameterBinder binder = new ParameterBinder(ConversionRegistry.getDefault().withConverter(Money.class, moneyConverter));
+
+		binder.bind(ps, 1, new Money());
+		binder.bind(ps, 1, null);
+
+		verify(ps).setNull(1, Types.NULL);
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.base.AbstractDatabase.Address;
+import com.tyler.sqlplus.base.DatabaseTest;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(Parameterized.class)
+public class PartitionedScanTest extends DatabaseTest {
+
+	private void insertAddresses() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Oak Street', 'Thistown', 'NY', '67890')",
+			"insert into address (street, city, state, zip) values('Pine Street', 'Thattown', 'WI', '11111')",
+			"insert into address (street, city, state, zip) values('Ash Street', 'Anytown', 'MN', '22222')"
+		);
+	}
+
+	@Test
+	public void partitionsFromMinAndMaxCoverEveryRowOnce() throws Exception {
+		insertAddresses();
+		PartitionedScan<Address> scan = db.getSQLPlus()
+			.partitionedScan("select * from address", Address.class)
+			.setPartitionColumn("address_id")
+			.setPartitions(3);
+		assertEquals(3, scan.getRanges().size());
+		try (Stream<Address> addresses = scan.stream()) {
+			Set<String> streets = addresses.map(address -> address.street).collect(toSet());
+			assertEquals(set("Maple Street", "Elm Street", "Oak Street", "Pine Street", "Ash Street"), streets);
+		}
+	}
+
+	@Test
+	public void partitionsCanBeProcessedInBatchesWithExplicitBoundaries() throws Exception {
+		insertAddresses();
+		Map<Integer, List<String>> streetsByPartition = new ConcurrentHashMap<>();
+		db.getSQLPlus()
+			.partitionedScan("select * from address where state <> :excludedState", Address.class)
+			.setParameter("excludedState", "WI")
+			.setPartitionColumn("zip")
+			.setBoundaries("20000", "60000")
+			.batchProcess(10, partition -> batch -> {
+				streetsByPartition.put(partition, batch.stream().map(address -> address.street).sorted().collect(toList()));
+			});
+		assertEquals(Arrays.asList("Maple Street"), streetsByPartition.get(0));
+		assertEquals(Arrays.asList("Ash Street", "Elm Street"), streetsByPartition.get(1));
+		assertEquals(Collections.singletonList("Oak Street"), streetsByPartition.get(2));
+	}
+
+	private static Set<String> set(String... values) {
+		return Arrays.stream(values).collect(toSet());
+	}
+
+}
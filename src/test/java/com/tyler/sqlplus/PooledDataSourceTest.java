@@ -0,0 +1,212 @@
+package com.tyler.sqlplus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
+import static org.junit.Assert.*;
+
+public class PooledDataSourceTest {
+
+	private PooledDataSource pool;
+
+	@Before
+	public void setupPool() {
+		pool = new PooledDataSource("jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1", "sa", "sa").setMaxSize(2).setBorrowTimeoutMillis(200);
+	}
+
+	@After
+	public void closePool() {
+		pool.close();
+	}
+
+	@Test
+	public void closedConnectionsAreReturnedToThePoolAndReused() throws Exception {
+		Connection first = pool.getConnection();
+		Connection physical = first.unwrap(Connection.class);
+		first.close();
+
+		Connection second = pool.getConnection();
+		assertSame(physical, second.unwrap(Connection.class));
+		assertEquals(1, pool.getTotalConnections());
+		second.close();
+	}
+
+	@Test
+	public void threadGetsBackTheConnectionItLastReturned() throws Exception {
+		Connection first = pool.getConnection();
+		Connection second = pool.getConnection();
+		Connection physical = second.unwrap(Connection.class);
+		first.close();
+		second.close();
+
+		Connection reborrowed = pool.getConnection();
+		assertSame(physical, reborrowed.unwrap(Connection.class));
+		assertEquals(1, pool.getThreadLocalHitCount());
+		reborrowed.close();
+	}
+
+	@Test
+	public void borrowTimesOutWhenPoolIsExhausted() throws Exception {
+		Connection first = pool.getConnection();
+		Connection second = pool.getConnection();
+		assertThrows(pool::getConnection, SQLTransientConnectionException.class);
+		first.close();
+		second.close();
+	}
+
+	@Test
+	public void waitingBorrowerReceivesReturnedConnection() throws Exception {
+		Connection first = pool.getConnection();
+		Connection second = pool.getConnection();
+
+		Thread returner = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+				first.close();
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		});
+		returner.start();
+
+		Connection third = pool.getConnection();
+		assertFalse(third.isClosed());
+		returner.join();
+		second.close();
+		third.close();
+	}
+
+	@Test
+	public void handleCannotBeUsedAfterItIsClosed() throws Exception {
+		Connection conn = pool.getConnection();
+		conn.close();
+		assertTrue(conn.isClosed());
+		assertThrows(conn::createStatement, SQLException.class, "Connection has already been returned to the pool");
+	}
+
+	@Test
+	public void uncommittedWorkIsRolledBackWhenConnectionIsReturned() throws Exception {
+		try (Connection conn = pool.getConnection()) {
+			conn.createStatement().executeUpdate("create table pool_test (id int)");
+		}
+
+		Connection conn = pool.getConnection();
+		conn.setAutoCommit(false);
+		conn.createStatement().executeUpdate("insert into pool_test values (1)");
+		conn.close();
+
+		try (Connection reused = pool.getConnection()) {
+			assertTrue(reused.getAutoCommit());
+			assertFalse(reused.createStatement().executeQuery("select * from pool_test").next());
+			reused.createStatement().executeUpdate("drop table pool_test");
+		}
+	}
+
+	@Test
+	public void expiredConnectionsAreRetired() throws Exception {
+		pool.setMaxLifetimeMillis(1);
+		Connection conn = pool.getConnection();
+		Thread.sleep(5);
+		conn.close();
+		assertEquals(0, pool.getTotalConnections());
+	}
+
+	@Test
+	public void housekeepingTopsPoolUpToMinimumSize() throws Exception {
+		pool.setMinSize(2);
+		pool.housekeep();
+		assertEquals(2, pool.getTotalConnections());
+		assertEquals(2, pool.getIdleConnections());
+	}
+
+	@Test
+	public void preparedStatementsAreReusedOnceClosed() throws Exception {
+		try (Connection conn = pool.getConnection()) {
+			PreparedStatement first = conn.prepareStatement("select x from system_range(1, 10) where x = ?");
+			first.setInt(1, 5);
+			first.close();
+
+			PreparedStatement second = conn.prepareStatement("select x from system_range(1, 10) where x = ?");
+			second.setInt(1, 6);
+			ResultSet rs = second.executeQuery();
+			rs.next();
+			assertEquals(6, rs.getInt(1));
+			second.close();
+		}
+		assertEquals(1, pool.getStatementCacheHitCount());
+		assertEquals(1, pool.getStatementCacheMissCount());
+	}
+
+	@Test
+	public void statementInUseIsNotHandedOutTwice() throws Exception {
+		try (Connection conn = pool.getConnection()) {
+			PreparedStatement outer = conn.prepareStatement("select 1 from dual");
+			PreparedStatement inner = conn.prepareStatement("select 1 from dual");
+			assertNotSame(outer, inner);
+			inner.close();
+			outer.close();
+		}
+		assertEquals(0, pool.getStatementCacheHitCount());
+	}
+
+	@Test
+	public void leastRecentlyUsedStatementsAreEvicted() throws Exception {
+		pool.setStatementCacheSize(1);
+		try (Connection conn = pool.getConnection()) {
+			conn.prepareStatement("select 1 from dual").close();
+			conn.prepareStatement("select 2 from dual").close();
+			conn.prepareStatement("select 1 from dual").close();
+		}
+		assertEquals(2, pool.getStatementCacheEvictionCount());
+		assertEquals(0, pool.getStatementCacheHitCount());
+	}
+
+	@Test
+	public void statementSettingsDoNotLeakToTheNextUserOfACachedStatement() throws Exception {
+		try (Connection conn = pool.getConnection()) {
+			PreparedStatement first = conn.prepareStatement("select x from system_range(1, 10)");
+			int fetchSize = first.getFetchSize();
+			int maxRows = first.getMaxRows();
+			int queryTimeout = first.getQueryTimeout();
+			int fetchDirection = first.getFetchDirection();
+			int maxFieldSize = first.getMaxFieldSize();
+			first.setFetchSize(fetchSize + 5);
+			first.setMaxRows(maxRows + 5);
+			first.setQueryTimeout(queryTimeout + 5);
+			first.setFetchDirection(ResultSet.FETCH_REVERSE);
+			first.setMaxFieldSize(maxFieldSize + 5);
+			first.close();
+
+			PreparedStatement second = conn.prepareStatement("select x from system_range(1, 10)");
+			assertEquals(fetchSize, second.getFetchSize());
+			assertEquals(maxRows, second.getMaxRows());
+			assertEquals(queryTimeout, second.getQueryTimeout());
+			assertEquals(fetchDirection, second.getFetchDirection());
+			assertEquals(maxFieldSize, second.getMaxFieldSize());
+			second.close();
+		}
+		assertEquals(1, pool.getStatementCacheHitCount());
+	}
+
+	@Test
+	public void queriesReuseCachedStatementsAfterChangingTheirSettings() throws Exception {
+		SQLPlus sqlPlus = new SQLPlus(pool);
+		sqlPlus.transact(session -> {
+			String sql = "select x from system_range(1, 10)";
+			assertTrue(session.createQuery(sql).exists()); // Lowers max rows to 1
+			assertEquals(10, session.createQuery(sql).setStreaming(true).fetch().size());
+			assertEquals(10, session.createQuery(sql).fetch().size());
+		});
+		assertEquals(2, pool.getStatementCacheHitCount());
+		assertEquals(1, pool.getStatementCacheMissCount());
+	}
+
+}
@@ -4,18 +4,26 @@ import com.tyler.sqlplus.base.DatabaseTest;
 import com.tyler.sqlplus.base.AbstractDatabase.Address;
 import com.tyler.sqlplus.base.AbstractDatabase.Employee;
 import com.tyler.sqlplus.base.AbstractDatabase.Employee.Type;
+import com.tyler.sqlplus.exception.NoResultsException;
+import com.tyler.sqlplus.exception.NonUniqueResultException;
 import com.tyler.sqlplus.exception.QueryStructureException;
 import com.tyler.sqlplus.exception.SQLRuntimeException;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
 import static org.junit.Assert.*;
@@ -401,6 +409,297 @@ public class QueryTest extends DatabaseTest {
 		});
 	}
 
+	@Test
+	public void batchesAreExecutedInChunksWhenChunkSizeIsSet() throws Exception {
+		db.getSQLPlus().transact(conn -> {
+			Query insert = conn.createQuery("insert into address (street, city, state, zip) values (?, ?, ?, ?)").setBatchChunkSize(2);
+			for (int i = 1; i <= 5; i++) {
+				insert.setParameter(1, "street" + i).setParameter(2, "city" + i).setParameter(3, "state" + i).setParameter(4, "zip" + i).finishBatch();
+			}
+			int[] affectedRows = insert.executeUpdate();
+			assertArrayEquals(new int[]{ 1, 1, 1, 1, 1 }, affectedRows);
+		});
+
+		assertEquals(5, db.query("select * from address").length);
+	}
+
+	@Test
+	public void streamedBindObjectsAreExecutedInChunksAndKeysAreCollected() throws Exception {
+		List<Address> addresses = new ArrayList<>();
+		for (int i = 1; i <= 3; i++) {
+			Address address = new Address();
+			address.street = "street" + i;
+			address.city = "city" + i;
+			address.state = "state" + i;
+			address.zip = "zip" + i;
+			addresses.add(address);
+		}
+
+		db.getSQLPlus().transact(conn -> {
+			List<Integer> keys = conn.createQuery("insert into address (street, city, state, zip) values (:street, :city, :state, :zip)")
+			                         .setBatchChunkSize(1)
+			                         .executeUpdate(addresses.stream(), Integer.class);
+			assertEquals(Arrays.asList(1, 2, 3), keys);
+		});
+
+		String[][] results = db.query("select street from address order by address_id");
+		assertEquals(3, results.length);
+		assertEquals("street3", results[2][0]);
+	}
+
+	@Test
+	public void emptyStreamOfBindObjectsExecutesNothing() throws Exception {
+		db.getSQLPlus().transact(conn -> {
+			Query insert = conn.createQuery("insert into address (street, city, state, zip) values (:street, :city, :state, :zip)");
+			assertArrayEquals(new int[0], insert.executeUpdate(Stream.<Address>empty()));
+			assertEquals(Collections.emptyList(), insert.executeUpdate(Collections.<Address>emptyIterator(), Integer.class));
+		});
+		assertEquals(0, db.query("select * from address").length);
+	}
+
+	@Test
+	public void streamedBindObjectsMustSupplyEveryParameter() throws Exception {
+		db.getSQLPlus().transact(conn -> {
+			assertThrows(() -> {
+				conn.createQuery("insert into employee(type, name, hired, salary) values (:type, :name, :hired, :salary)")
+				    .executeUpdate(Arrays.asList(new EmployeePartial()).iterator());
+			}, QueryStructureException.class, "Missing parameter values for the following parameters: [type, salary]");
+		});
+	}
+
+	@Test
+	public void batchedInsertsCanBeRewrittenAsMultiRowInserts() throws Exception {
+		db.getSQLPlus().transact(conn -> {
+			Query insert = conn.createQuery("insert into address (street, city, state, zip) values (:street, :city, :state, :zip)").setRewriteBatchedInserts(true);
+			for (int i = 1; i <= 5; i++) {
+				insert.setParameter("street", "street" + i).setParameter("city", "city" + i).setParameter("state", "state" + i).setParameter("zip", "zip" + i).finishBatch();
+			}
+			assertArrayEquals(new int[]{ 1, 1, 1, 1, 1 }, insert.executeUpdate());
+		});
+
+		String[][] results = db.query("select street, zip from address order by address_id");
+		assertEquals(5, results.length);
+		assertArrayEquals(new String[]{ "street5", "zip5" }, results[4]);
+	}
+
+	@Test
+	public void maxRowsLimitsTheNumberOfResults() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Oak Street', 'Thistown', 'NY', '67890')"
+		);
+		List<Address> addresses = db.getSQLPlus().transactAndReturn(conn -> conn.createQuery("select * from address").setMaxRows(2).fetchAs(Address.class));
+		assertEquals(2, addresses.size());
+	}
+
+	@Test
+	public void streamingQueriesReadAllResults() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Oak Street', 'Thistown', 'NY', '67890')"
+		);
+		List<String> streets = new ArrayList<>();
+		db.getSQLPlus().transact(conn -> {
+			conn.createQuery("select * from address order by address_id").setStreaming(true).batchProcess(Address.class, 2, batch -> {
+				batch.forEach(address -> streets.add(address.street));
+			});
+		});
+		assertEquals(Arrays.asList("Maple Street", "Elm Street", "Oak Street"), streets);
+	}
+
+	@Test
+	public void statementIsClosedOnceAllResultsAreRead() throws Exception {
+		db.batch("insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')");
+		long leakedBefore = db.getSQLPlus().getLeakedCursorCount();
+		db.getSQLPlus().transact(conn -> {
+			Iterator<ResultSet> rows = conn.createQuery("select * from address").stream().iterator();
+			ResultSet rs = rows.next();
+			assertFalse(rows.hasNext());
+			assertTrue(rs.isClosed());
+		});
+		assertEquals(leakedBefore, db.getSQLPlus().getLeakedCursorCount());
+	}
+
+	@Test
+	public void abandonedStreamsAreClosedWhenTheTransactionEnds() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')"
+		);
+		long leakedBefore = db.getSQLPlus().getLeakedCursorCount();
+		db.getSQLPlus().transact(conn -> {
+			conn.createQuery("select * from address").streamAs(Address.class).findFirst();
+			try (Stream<Address> closedEarly = conn.createQuery("select * from address").streamAs(Address.class)) {
+				closedEarly.findFirst();
+			}
+		});
+		assertEquals(leakedBefore + 1, db.getSQLPlus().getLeakedCursorCount());
+	}
+
+	@Test
+	public void abandonedParallelStreamsAreClosedThroughTheirReaderWhenTheTransactionEnds() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Oak Street', 'Thistown', 'NY', '67890')"
+		);
+		long leakedBefore = db.getSQLPlus().getLeakedCursorCount();
+		db.getSQLPlus().transact(conn -> {
+			Iterator<Address> addresses = conn.createQuery("select * from address order by address_id").parallelStreamAs(Address.class, 1).iterator();
+			assertEquals("Maple Street", addresses.next().street);
+		});
+		assertEquals(leakedBefore + 1, db.getSQLPlus().getLeakedCursorCount());
+		assertEquals(3, db.getSQLPlus().transactAndReturn(conn -> conn.createQuery("select * from address").fetch()).size());
+	}
+
+	@Test
+	public void uniqueResultStopsReadingAfterTheSecondRow() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Oak Street', 'Thistown', 'NY', '67890')"
+		);
+		db.getSQLPlus().transact(conn -> {
+			Query query = conn.createQuery("select * from address").setMaxRows(10);
+			assertThrows(() -> query.getUniqueResultAs(Address.class), NonUniqueResultException.class);
+			assertEquals(3, query.fetch().size());
+			assertThrows(() -> conn.createQuery("select * from address where state = 'XX'").getUniqueResultAs(Address.class), NoResultsException.class);
+		});
+	}
+
+	@Test
+	public void firstReturnsOnlyTheFirstResult() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')"
+		);
+		db.getSQLPlus().transact(conn -> {
+			Optional<Address> first = conn.createQuery("select * from address order by address_id").first(Address.class);
+			assertEquals("Maple Street", first.get().street);
+			assertFalse(conn.createQuery("select * from address where state = 'XX'").first(Address.class).isPresent());
+		});
+	}
+
+	@Test
+	public void existsChecksForAnyResult() throws Exception {
+		db.batch("insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')");
+		db.getSQLPlus().transact(conn -> {
+			assertTrue(conn.createQuery("select * from address where state = :state").setParameter("state", "MN").exists());
+			assertFalse(conn.createQuery("select * from address where state = :state").setParameter("state", "XX").exists());
+		});
+	}
+
+	@Test
+	public void limitCapsTheNumberOfResults() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Oak Street', 'Thistown', 'NY', '67890')"
+		);
+		db.getSQLPlus().transact(conn -> {
+			assertEquals(2, conn.createQuery("select * from address").limit(2).fetchAs(Address.class).size());
+		});
+	}
+
+	@Test
+	public void streamingResultsClosedEarlyDoNotLeakTheStatement() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')"
+		);
+		long leakedBefore = db.getSQLPlus().getLeakedCursorCount();
+		db.getSQLPlus().transact(conn -> {
+			try (Stream<Address> addresses = conn.createQuery("select * from address").setStreaming(true).streamAs(Address.class)) {
+				assertTrue(addresses.findFirst().isPresent());
+			}
+		});
+		assertEquals(leakedBefore, db.getSQLPlus().getLeakedCursorCount());
+	}
+
+	@Test
+	public void parallelStreamsMapEveryRowInOrder() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Oak Street', 'Thistown', 'NY', '67890')"
+		);
+		long leakedBefore = db.getSQLPlus().getLeakedCursorCount();
+		List<String> streets = db.getSQLPlus().transactAndReturn(conn -> {
+			try (Stream<Address> addresses = conn.createQuery("select * from address order by address_id").parallelStreamAs(Address.class, 2)) {
+				return addresses.map(address -> address.street).collect(Collectors.toList());
+			}
+		});
+		assertEquals(Arrays.asList("Maple Street", "Elm Street", "Oak Street"), streets);
+		assertEquals(leakedBefore, db.getSQLPlus().getLeakedCursorCount());
+	}
+
+	@Test
+	public void prefetchedResultsAreReadInOrder() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Oak Street', 'Thistown', 'NY', '67890')"
+		);
+		db.getSQLPlus().transact(conn -> {
+			List<Address> addresses = conn.createQuery("select * from address order by address_id").setPrefetch(2).fetchAs(Address.class);
+			assertEquals(Arrays.asList("Maple Street", "Elm Street", "Oak Street"), addresses.stream().map(address -> address.street).collect(Collectors.toList()));
+
+			List<Integer> batchSizes = new ArrayList<>();
+			conn.createQuery("select * from address order by address_id").setPrefetch(2).batchProcess(Address.class, 2, batch -> batchSizes.add(batch.size()));
+			assertEquals(Arrays.asList(2, 1), batchSizes);
+		});
+	}
+
+	@Test
+	public void batchesCanBeProcessedOnConsumerThreads() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')",
+			"insert into address (street, city, state, zip) values('Oak Street', 'Thistown', 'NY', '67890')"
+		);
+		List<List<Address>> batches = new ArrayList<>();
+		db.getSQLPlus().transact(conn -> {
+			conn.createQuery("select * from address order by address_id").batchProcess(Address.class, new BatchOptions<Address>().setMaxRows(2), batches::add);
+		});
+		assertEquals(2, batches.size());
+		assertEquals("Maple Street", batches.get(0).get(0).street);
+		assertEquals("Oak Street", batches.get(1).get(0).street);
+	}
+
+	static class GeneratedAddress {
+		int addressId;
+		private String street;
+		public String city;
+		private String streetSetBy;
+		public void setStreet(String street) {
+			this.street = street;
+			this.streetSetBy = new Throwable().getStackTrace()[1].getClassName();
+		}
+	}
+
+	@Test
+	public void generatedRowMappersMapFieldsSettersAndPrimitives() throws Exception {
+		db.batch(
+			"insert into address (street, city, state, zip) values('Maple Street', 'Anytown', 'MN', '12345')",
+			"insert into address (street, city, state, zip) values('Elm Street', 'Othertown', 'CA', '54321')"
+		);
+		db.getSQLPlus().setGeneratedRowMappers(true);
+		try {
+			List<GeneratedAddress> addresses = db.getSQLPlus().transactAndReturn(conn -> {
+				return conn.createQuery("select * from address order by address_id").fetchAs(GeneratedAddress.class);
+			});
+			assertEquals(2, addresses.size());
+			assertTrue(addresses.get(0).addressId > 0);
+			assertEquals("Maple Street", addresses.get(0).street);
+			assertEquals("Othertown", addresses.get(1).city);
+			assertTrue(addresses.get(0).streetSetBy.contains("$$SQLPlusRowMapper$")); // Not the reflective fallback
+		} finally {
+			db.getSQLPlus().setGeneratedRowMappers(false);
+		}
+	}
+
 	@Test
 	public void dataIsNotPersistedIfAnErrorIsThrownBeforeCommit() throws Exception {
 		
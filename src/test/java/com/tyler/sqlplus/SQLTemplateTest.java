@@ -0,0 +1,109 @@
+package com.tyler.sqlplus;
+
+import com.tyler.sqlplus.exception.QueryStructureException;
+import com.tyler.sqlplus.utility.ConcurrentLRUCache;
+import org.junit.Test;
+
+import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
+import static org.junit.Assert.*;
+
+public class SQLTemplateTest {
+
+	@Test
+	public void labelsAndQuestionMarksAreIndexedInOrder() throws Exception {
+		SQLTemplate template = SQLTemplate.of("select * from address where city = :city and state = ? and zip = :zip");
+		assertEquals("select * from address where city = ? and state = ? and zip = ?", template.getFormattedSql());
+		assertEquals(3, template.getParamCount());
+		assertEquals(Integer.valueOf(1), template.getParamIndex("city"));
+		assertEquals(Integer.valueOf(2), template.getParamIndex("2"));
+		assertEquals(Integer.valueOf(3), template.getParamIndex("zip"));
+		assertNull(template.getParamIndex("state"));
+	}
+
+	@Test
+	public void literalsAndCommentsAreNotScannedForParameters() throws Exception {
+		String sql =
+			"select 'a :b ? '' :c', \"col:d?\", `e:f` -- :g ?\n" +
+			"from t /* :h ? */ where x = :x";
+		SQLTemplate template = SQLTemplate.of(sql);
+		assertEquals(1, template.getParamCount());
+		assertEquals(Integer.valueOf(1), template.getParamIndex("x"));
+		assertEquals(sql.replace(":x", "?"), template.getFormattedSql());
+	}
+
+	@Test
+	public void castsAndLoneColonsAreNotParameters() throws Exception {
+		SQLTemplate template = SQLTemplate.of("select created::date, 'x' || ': ' from t where id = :id::int and n = ?");
+		assertEquals("select created::date, 'x' || ': ' from t where id = ?::int and n = ?", template.getFormattedSql());
+		assertEquals(Integer.valueOf(1), template.getParamIndex("id"));
+		assertEquals(Integer.valueOf(2), template.getParamIndex("2"));
+		assertNull(template.getParamIndex("date"));
+	}
+
+	@Test
+	public void singleRowInsertsAreExpandedToMultipleRows() throws Exception {
+		SQLTemplate template = SQLTemplate.of("insert into address (city, zip) values (:city, trim(:zip)) on duplicate key update zip = values(zip)");
+		assertEquals(
+			"insert into address (city, zip) values (?, trim(?)), (?, trim(?)) on duplicate key update zip = values(zip)",
+			template.getValuesClause().getSql(2)
+		);
+	}
+
+	@Test
+	public void onlyInsertsWithOneTupleHoldingAllParametersCanBeExpanded() throws Exception {
+		assertNull(SQLTemplate.of("update address set city = :city").getValuesClause());
+		assertNull(SQLTemplate.of("insert into address (city, zip) select :city, :zip").getValuesClause());
+		assertNull(SQLTemplate.of("insert into address (city, zip) values (:city, 'a'), (:zip, 'b')").getValuesClause());
+		assertNull(SQLTemplate.of("insert into address (city, zip) values ('a', 'b')").getValuesClause());
+		assertNull(SQLTemplate.of("insert into address (city) values (:city) returning :zip").getValuesClause());
+	}
+
+	@Test
+	public void sameSqlSharesOneTemplate() throws Exception {
+		String sql = "select * from address where address_id = :id";
+		assertSame(SQLTemplate.of(sql), SQLTemplate.of(new String(sql)));
+	}
+
+	@Test
+	public void invalidSqlIsNotCached() throws Exception {
+		String sql = "select * from address where city = :city or city = :city";
+		assertThrows(() -> SQLTemplate.of(sql), QueryStructureException.class);
+		assertNull(SQLTemplate.cache().get(sql));
+	}
+
+	@Test
+	public void cacheEvictsLeastRecentlyReadEntries() throws Exception {
+		ConcurrentLRUCache<Integer, String> cache = new ConcurrentLRUCache<>(4);
+		for (int i = 0; i < 4; i++) {
+			cache.computeIfAbsent(i, String::valueOf);
+			Thread.sleep(1);
+		}
+		cache.get(0);
+		cache.computeIfAbsent(4, String::valueOf);
+
+		assertEquals(3, cache.size());
+		assertEquals(2, cache.getEvictionCount());
+		assertNotNull(cache.get(0));
+		assertNull(cache.get(1));
+		assertNull(cache.get(2));
+	}
+
+	static class CityAndZip {
+		String city = "Anytown";
+		String zip = "12345";
+	}
+
+	@Test
+	public void bindPlansAreCachedPerClassAndBindOnlyMatchingFields() throws Exception {
+		SQLTemplate template = SQLTemplate.of("select * from address where city = :city and state = :state and zip = :zip");
+		BindPlan plan = template.getBindPlan(CityAndZip.class);
+		assertSame(plan, template.getBindPlan(CityAndZip.class));
+
+		ParamBatches paramBatches = new ParamBatches(template.getParamCount());
+		assertFalse(plan.bind(new CityAndZip(), paramBatches));
+		assertTrue(paramBatches.isSet(1));
+		assertFalse(paramBatches.isSet(2));
+		assertTrue(paramBatches.isSet(3));
+	}
+
+}
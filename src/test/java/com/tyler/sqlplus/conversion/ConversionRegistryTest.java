@@ -0,0 +1,80 @@
+package com.tyler.sqlplus.conversion;
+
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ConversionRegistryTest {
+
+	static class Money {
+	}
+
+	static class MoneyConverter extends IndexedSQLConverter<Money> {
+
+		@Override
+		public Class<Money> getConvertedClass() {
+			return Money.class;
+		}
+
+		@Override
+		public Money read(ResultSet rs, int column, Class<?> targetType) throws SQLException {
+			return new Money();
+		}
+
+		@Override
+		public void write(PreparedStatement ps, int parameterIndex, Money obj) throws SQLException {
+		}
+
+	}
+
+	@Test
+	public void defaultRegistryIsShared() throws Exception {
+		assertSame(ConversionRegistry.getDefault(), ConversionRegistry.getDefault());
+	}
+
+	@Test
+	public void withConverterCopiesTheRegistry() throws Exception {
+		ConversionRegistry defaults = ConversionRegistry.getDefault();
+		MoneyConverter moneyConverter = new MoneyConverter();
+		ConversionRegistry custom = defaults.withConverter(Money.class, moneyConverter);
+
+		assertSame(moneyConverter, custom.getConverter(Money.class));
+		assertTrue(custom.containsConverterFor(Money.class));
+		assertFalse(defaults.containsConverterFor(Money.class));
+		assertSame(defaults.getConverter(String.class), custom.getConverter(String.class));
+	}
+
+	@Test
+	public void resolvingAConverterDoesNotRegisterTheClass() throws Exception {
+		ConversionRegistry registry = new ConversionRegistry();
+		SQLConverter<TimeUnit> enumConverter = registry.getConverter(TimeUnit.class);
+		assertSame(enumConverter, registry.getConverter(TimeUnit.class));
+		assertSame(registry.getConverter(Enum.class), enumConverter);
+		assertFalse(registry.containsConverterFor(TimeUnit.class));
+	}
+
+	@Test
+	public void registriesWithTheSameConvertersAreEqual() throws Exception {
+		ConversionRegistry first = new ConversionRegistry();
+		ConversionRegistry second = new ConversionRegistry();
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+
+		MoneyConverter moneyConverter = new MoneyConverter();
+		assertNotEquals(first, first.withConverter(Money.class, moneyConverter));
+		assertEquals(first.withConverter(Money.class, moneyConverter), second.withConverter(Money.class, moneyConverter));
+		assertNotEquals(first.withConverter(Money.class, moneyConverter), second.withConverter(Money.class, new MoneyConverter()));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	@SuppressWarnings("deprecation")
+	public void registeringInPlaceIsRejected() throws Exception {
+		ConversionRegistry.getDefault().registerConverter(Money.class, new MoneyConverter());
+	}
+
+}
@@ -1,5 +1,6 @@
 package com.tyler.sqlplus.conversion;
 
+import com.tyler.sqlplus.Query;
 import com.tyler.sqlplus.annotation.Conversion;
 import com.tyler.sqlplus.base.DatabaseTest;
 import org.junit.Test;
@@ -14,6 +15,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Date;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
@@ -22,6 +24,21 @@ import static org.junit.Assert.assertEquals;
 public class ConversionTest extends DatabaseTest {
 
 	enum Size { SMALL, MEDIUM, LARGE };
+
+	enum Priority implements CodedEnum {
+		LOW(10), HIGH(20);
+
+		private final int code;
+
+		Priority(int code) {
+			this.code = code;
+		}
+
+		@Override
+		public int getCode() {
+			return code;
+		}
+	}
 	
 	public static class TypesBag {
 		int tinyInt;
@@ -51,6 +68,10 @@ public class ConversionTest extends DatabaseTest {
 		LocalDateTime localDateTime;
 		LocalTime localTime;
 		Size enumField;
+		@Conversion(ConversionRegistry.ENUM_ORDINAL)
+		Size ordinalEnum;
+		@Conversion(ConversionRegistry.ENUM_CODE)
+		Priority codedEnum;
 	}
 	
 	@Test
@@ -363,6 +384,52 @@ public class ConversionTest extends DatabaseTest {
 		testRead("int_field", "1", "enum_field", "enumField", null);
 	}
 
+	@Test
+	public void enumIsReadByOrdinal() throws Exception {
+		testRead("int_field", "1", "int_field", "ordinalEnum", Size.MEDIUM);
+	}
+
+	@Test
+	public void enumIsReadByCode() throws Exception {
+		testRead("int_field", "20", "int_field", "codedEnum", Priority.HIGH);
+	}
+
+	@Test
+	public void codedEnumIsWrittenByCodeWhenBound() throws Exception {
+		TypesBag bag = new TypesBag();
+		bag.codedEnum = Priority.LOW;
+		db.getSQLPlus().transact(s -> s.createQuery("insert into types_table(int_field) values(:codedEnum)").bind(bag).executeUpdate());
+		assertArrayEquals(new String[][] {{ "10" }}, db.query("select int_field from types_table"));
+	}
+
+	public static class PlainCode {
+		Integer codedEnum = 30;
+	}
+
+	@Test
+	public void conversionsOfABoundClassDoNotApplyToTheNextBoundClass() throws Exception {
+		TypesBag bag = new TypesBag();
+		bag.codedEnum = Priority.LOW;
+		db.getSQLPlus().transact(s -> {
+			s.createQuery("insert into types_table(int_field) values(:codedEnum)")
+			 .setBatchChunkSize(1)
+			 .executeUpdate(Stream.of(bag, new PlainCode()));
+		});
+		assertArrayEquals(new String[][] {{ "10" }, { "30" }}, db.query("select int_field from types_table order by int_field"));
+	}
+
+	@Test
+	public void manuallySetParametersAreNotWrittenThroughABoundConversion() throws Exception {
+		TypesBag bag = new TypesBag();
+		bag.codedEnum = Priority.HIGH;
+		db.getSQLPlus().transact(s -> {
+			Query query = s.createQuery("insert into types_table(int_field) values(:codedEnum)").setBatchChunkSize(1);
+			query.executeUpdate(Stream.of(bag));
+			query.setParameter("codedEnum", 40).executeUpdate();
+		});
+		assertArrayEquals(new String[][] {{ "20" }, { "40" }}, db.query("select int_field from types_table order by int_field"));
+	}
+
 	@Test
 	public void localDateFieldIsReadWhenPresent() throws Exception {
 		testRead("date_field", "'2005-01-05'", "date_field", "localDate", LocalDate.of(2005, 1, 5));
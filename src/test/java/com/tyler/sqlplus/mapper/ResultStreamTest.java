@@ -0,0 +1,58 @@
+package com.tyler.sqlplus.mapper;
+
+import com.tyler.sqlplus.exception.SQLRuntimeException;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class ResultStreamTest {
+
+	private static ResultSet mockResultSet(int rows) throws SQLException {
+
+		ResultSetMetaData rsMeta = mock(ResultSetMetaData.class);
+		when(rsMeta.getColumnCount()).thenReturn(1);
+		when(rsMeta.getColumnLabel(1)).thenReturn("id");
+
+		AtomicInteger row = new AtomicInteger();
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getMetaData()).thenReturn(rsMeta);
+		when(rs.next()).thenAnswer(invocation -> row.incrementAndGet() <= rows);
+		when(rs.getObject(1)).thenAnswer(invocation -> row.get());
+		return rs;
+	}
+
+	@Test
+	public void parallelStreamMapsEveryRowInOrder() throws Exception {
+		ResultSet rs = mockResultSet(1000);
+		List<Integer> ids;
+		try (Stream<Integer> results = ResultStream.parallelStream(rs, null, false, null, () -> r -> r.getInt("ID"), 64)) {
+			ids = results.collect(Collectors.toList());
+		}
+		assertEquals(IntStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList()), ids);
+		verify(rs).close();
+	}
+
+	@Test
+	public void prefetchingStreamRethrowsReaderErrorsToTheConsumer() throws Exception {
+		ResultSet rs = mockResultSet(10);
+		when(rs.next()).thenReturn(true).thenThrow(new SQLException("Connection reset"));
+		assertThrows(() -> {
+			try (Stream<Object> results = ResultStream.prefetchingStream(rs, null, false, null, () -> r -> r.getObject(1), 1, 1)) {
+				results.forEach(result -> {});
+			}
+		}, SQLRuntimeException.class);
+		verify(rs).close();
+	}
+
+}
@@ -10,11 +10,16 @@ import java.lang.reflect.Field;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class RowMappersTest {
@@ -63,25 +68,25 @@ public class RowMappersTest {
 		ResultSet rsToMap = mock(ResultSet.class);
 		
 		when(rsToMap.getMetaData()).thenReturn(rsMeta);
-		when(rsToMap.getInt("intField")).thenReturn(1);
-		when(rsToMap.getFloat("floatField")).thenReturn(1.5f);
-		when(rsToMap.getShort("shortField")).thenReturn((short) 2);
-		when(rsToMap.getLong("longField")).thenReturn((long) 3);
-		when(rsToMap.getDouble("doubleField")).thenReturn((double) 4);
-		when(rsToMap.getBoolean("boolField")).thenReturn(true);
-		when(rsToMap.getString("charField")).thenReturn("c");
-		
-		when(rsToMap.getInt("bigIntField")).thenReturn(1);
-		when(rsToMap.getFloat("bigFloatField")).thenReturn(1.5f);
-		when(rsToMap.getShort("bigShortField")).thenReturn((short) 2);
-		when(rsToMap.getLong("bigLongField")).thenReturn((long) 3);
-		when(rsToMap.getDouble("bigDoubleField")).thenReturn((double) 4);
-		when(rsToMap.getBoolean("bigBoolField")).thenReturn(true);
-		when(rsToMap.getString("bigCharField")).thenReturn("c");
-		
-		when(rsToMap.getString("stringField")).thenReturn("string");
-		when(rsToMap.getString("enumField")).thenReturn("SMALL");
-		when(rsToMap.getString("localDateField")).thenReturn("2015-01-01");
+		when(rsToMap.getInt(1)).thenReturn(1);
+		when(rsToMap.getFloat(3)).thenReturn(1.5f);
+		when(rsToMap.getShort(5)).thenReturn((short) 2);
+		when(rsToMap.getLong(7)).thenReturn((long) 3);
+		when(rsToMap.getDouble(9)).thenReturn((double) 4);
+		when(rsToMap.getBoolean(11)).thenReturn(true);
+		when(rsToMap.getString(13)).thenReturn("c");
+		
+		when(rsToMap.getInt(2)).thenReturn(1);
+		when(rsToMap.getFloat(4)).thenReturn(1.5f);
+		when(rsToMap.getShort(6)).thenReturn((short) 2);
+		when(rsToMap.getLong(8)).thenReturn((long) 3);
+		when(rsToMap.getDouble(10)).thenReturn((double) 4);
+		when(rsToMap.getBoolean(12)).thenReturn(true);
+		when(rsToMap.getString(14)).thenReturn("c");
+		
+		when(rsToMap.getString(15)).thenReturn("string");
+		when(rsToMap.getString(16)).thenReturn("SMALL");
+		when(rsToMap.getString(17)).thenReturn("2015-01-01");
 		
 		MyPOJO pojo = RowMapperFactory.newMapper(MyPOJO.class, new ConversionRegistry(), mock(Session.class)).map(rsToMap);
 		
@@ -120,7 +125,7 @@ public class RowMappersTest {
 		
 		ResultSet rsToMap = mock(ResultSet.class);
 		when(rsToMap.getMetaData()).thenReturn(rsMeta);
-		when(rsToMap.getInt("presentField")).thenReturn(1);
+		when(rsToMap.getInt(1)).thenReturn(1);
 		
 		POJOWithNullFields pojo = RowMapperFactory.newMapper(POJOWithNullFields.class, new ConversionRegistry(), mock(Session.class)).map(rsToMap);
 		
@@ -173,8 +178,8 @@ public class RowMappersTest {
 		ResultSet rsToMap = mock(ResultSet.class);
 		
 		when(rsToMap.getMetaData()).thenReturn(rsMeta);
-		when(rsToMap.getString("id")).thenReturn("12345");
-		when(rsToMap.getString("name")).thenReturn("fakeyMcMadeup");
+		when(rsToMap.getString(1)).thenReturn("12345");
+		when(rsToMap.getString(2)).thenReturn("fakeyMcMadeup");
 		
 		ProxiablePOJOByField proxy = RowMapperFactory.newMapper(ProxiablePOJOByField.class, new ConversionRegistry(), mock(Session.class)).map(rsToMap);
 		assertTrue(proxy instanceof Proxy);
@@ -204,8 +209,8 @@ public class RowMappersTest {
 		ResultSet rsToMap = mock(ResultSet.class);
 		
 		when(rsToMap.getMetaData()).thenReturn(rsMeta);
-		when(rsToMap.getString("id")).thenReturn("12345");
-		when(rsToMap.getString("name")).thenReturn("fakeyMcMadeup");
+		when(rsToMap.getString(1)).thenReturn("12345");
+		when(rsToMap.getString(2)).thenReturn("fakeyMcMadeup");
 		
 		ProxiablePOJOByMethod proxy = RowMapperFactory.newMapper(ProxiablePOJOByMethod.class, new ConversionRegistry(), mock(Session.class)).map(rsToMap);
 		assertTrue(proxy instanceof Proxy);
@@ -226,8 +231,8 @@ public class RowMappersTest {
 		ResultSet rsToMap = mock(ResultSet.class);
 		
 		when(rsToMap.getMetaData()).thenReturn(rsMeta);
-		when(rsToMap.getString("id")).thenReturn("12345");
-		when(rsToMap.getString("name")).thenReturn("fakeyMcMadeup");
+		when(rsToMap.getString(1)).thenReturn("12345");
+		when(rsToMap.getString(2)).thenReturn("fakeyMcMadeup");
 		
 		NormalPOJO pojo = RowMapperFactory.newMapper(NormalPOJO.class, new ConversionRegistry(), mock(Session.class)).map(rsToMap);
 		assertFalse(pojo instanceof Proxy);
@@ -250,11 +255,92 @@ public class RowMappersTest {
 		ResultSet rsToMap = mock(ResultSet.class);
 		
 		when(rsToMap.getMetaData()).thenReturn(rsMeta);
-		when(rsToMap.getString("id")).thenReturn("12345");
-		when(rsToMap.getString("name")).thenReturn("fakeyMcMadeup");
+		when(rsToMap.getString(1)).thenReturn("12345");
+		when(rsToMap.getString(2)).thenReturn("fakeyMcMadeup");
 
 		// Throws if error
 		RowMapperFactory.newMapper(PrivateConstructorPOJO.class, new ConversionRegistry(), mock(Session.class)).map(rsToMap);
 	}
 	
+	@Test
+	public void testScalarMapperChecksColumnCountOnlyOnce() throws Exception {
+
+		ResultSetMetaData rsMeta = mock(ResultSetMetaData.class);
+		when(rsMeta.getColumnCount()).thenReturn(1);
+
+		ResultSet rsToMap = mock(ResultSet.class);
+		when(rsToMap.getMetaData()).thenReturn(rsMeta);
+		when(rsToMap.getInt(1)).thenReturn(7, 8);
+
+		RowMapper<Integer> mapper = RowMapperFactory.newMapper(Integer.class, new ConversionRegistry(), mock(Session.class));
+		assertEquals(new Integer(7), mapper.map(rsToMap));
+		assertEquals(new Integer(8), mapper.map(rsToMap));
+		verify(rsMeta, times(1)).getColumnCount();
+		verify(rsToMap, never()).getInt(anyString());
+	}
+
+	public static class PlannedPOJO {
+		private String id, name;
+	}
+
+	@Test
+	public void testMappingPlansAreSharedBetweenMappersOfTheSameLayout() throws Exception {
+
+		ResultSetMetaData rsMeta = mock(ResultSetMetaData.class);
+		when(rsMeta.getColumnCount()).thenReturn(2);
+		when(rsMeta.getColumnLabel(1)).thenReturn("id");
+		when(rsMeta.getColumnLabel(2)).thenReturn("NAME");
+
+		ResultSet rsToMap = mock(ResultSet.class);
+		when(rsToMap.getMetaData()).thenReturn(rsMeta);
+		when(rsToMap.getString(1)).thenReturn("12345");
+		when(rsToMap.getString(2)).thenReturn("fakeyMcMadeup");
+
+		ConversionRegistry registry = new ConversionRegistry();
+		long hitsBefore = RowMapperFactory.getMappingPlanHitCount();
+		PlannedPOJO first = RowMapperFactory.newMapper(PlannedPOJO.class, registry, mock(Session.class)).map(rsToMap);
+		PlannedPOJO second = RowMapperFactory.newMapper(PlannedPOJO.class, registry, mock(Session.class)).map(rsToMap);
+
+		assertEquals("12345", first.id);
+		assertEquals("fakeyMcMadeup", second.name);
+		assertEquals(hitsBefore + 1, RowMapperFactory.getMappingPlanHitCount());
+		assertTrue(RowMapperFactory.getMappingPlanCount() > 0);
+	}
+
+	@Test
+	public void testMapRowsShareColumnsAndBehaveLikeHashMaps() throws Exception {
+
+		ResultSetMetaData rsMeta = mock(ResultSetMetaData.class);
+		when(rsMeta.getColumnCount()).thenReturn(3);
+		when(rsMeta.getColumnLabel(1)).thenReturn("id");
+		when(rsMeta.getColumnLabel(2)).thenReturn("name");
+		when(rsMeta.getColumnLabel(3)).thenReturn("id");
+
+		ResultSet rsToMap = mock(ResultSet.class);
+		when(rsToMap.getMetaData()).thenReturn(rsMeta);
+		when(rsToMap.getObject(1)).thenReturn(1, 2);
+		when(rsToMap.getObject(2)).thenReturn("first", "second");
+		when(rsToMap.getObject(3)).thenReturn(10, 20);
+
+		RowMapper<Map> mapper = RowMapperFactory.newMapper(Map.class, new ConversionRegistry(), mock(Session.class));
+		Map<String, Object> first = mapper.map(rsToMap);
+		Map<String, Object> second = mapper.map(rsToMap);
+		verify(rsMeta, times(1)).getColumnCount();
+
+		Map<String, Object> expected = new HashMap<>();
+		expected.put("id", 10);
+		expected.put("name", "first");
+		assertEquals(expected, first);
+		assertEquals(expected.hashCode(), first.hashCode());
+		assertEquals(20, second.get("id"));
+
+		assertEquals("second", second.remove("name"));
+		assertFalse(second.containsKey("name"));
+		assertNull(second.put("extra", true));
+		assertEquals(2, second.size());
+		assertNull(second.put("name", "again"));
+		assertEquals("again", second.get("name"));
+		assertEquals(expected, first);
+	}
+
 }
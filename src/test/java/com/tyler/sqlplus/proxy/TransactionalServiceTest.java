@@ -1,6 +1,8 @@
 package com.tyler.sqlplus.proxy;
 
+import com.tyler.sqlplus.Query;
 import com.tyler.sqlplus.SQLPlus;
+import com.tyler.sqlplus.Session;
 import com.tyler.sqlplus.annotation.*;
 import com.tyler.sqlplus.annotation.SQLUpdate.ReturnInfo;
 import com.tyler.sqlplus.exception.AnnotationConfigurationException;
@@ -18,6 +20,11 @@ import java.util.List;
 import static com.tyler.sqlplus.base.SQLPlusTesting.assertThrows;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(Parameterized.class)
 public class TransactionalServiceTest extends DatabaseTest {
@@ -397,4 +404,39 @@ public class TransactionalServiceTest extends DatabaseTest {
 		assertEquals(updates, 2);
 	}
 
+	static abstract class StreamingService {
+
+		@SQLQuery(value = "select * from address", streaming = SQLQuery.Streaming.ON)
+		public abstract Address streamingOn();
+
+		@SQLQuery(value = "select * from address", streaming = SQLQuery.Streaming.OFF)
+		public abstract Address streamingOff();
+
+		@SQLQuery("select * from address")
+		public abstract Address streamingDefault();
+
+	}
+
+	@Test
+	public void streamingAttributeOverridesTheDefaultEitherWay() throws Exception {
+		for (String methodName : Arrays.asList("streamingOn", "streamingOff", "streamingDefault")) {
+			Query query = mock(Query.class);
+			Session session = mock(Session.class);
+			when(session.createQuery("select * from address")).thenReturn(query);
+
+			TransactionalService.invokeQuery(StreamingService.class.getMethod(methodName), new Object[0], session);
+
+			switch (methodName) {
+				case "streamingOn":
+					verify(query).setStreaming(true);
+					break;
+				case "streamingOff":
+					verify(query).setStreaming(false);
+					break;
+				default:
+					verify(query, never()).setStreaming(anyBoolean());
+			}
+		}
+	}
+
 }
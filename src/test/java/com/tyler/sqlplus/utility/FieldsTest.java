@@ -1,8 +1,10 @@
 package com.tyler.sqlplus.utility;
 
+import com.tyler.sqlplus.exception.ReflectionException;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class FieldsTest {
 
@@ -35,6 +37,44 @@ public class FieldsTest {
 		assertEquals("testField", Fields.underscoreToCamelCase("TEST_FIELD"));
 	}
 
-}
+	static class Bean {
+		private int count;
+		private String name;
+		private int nameWrites;
+		public String getName() {
+			return "name:" + name;
+		}
+		public void setName(String name) {
+			nameWrites++;
+			this.name = name;
+		}
+	}
 
+	@Test
+	public void getAndSetUseAccessorsWhenDeclared() throws Exception {
+		Bean bean = new Bean();
+		Fields.set(Bean.class.getDeclaredField("name"), bean, "tester");
+		assertEquals(1, bean.nameWrites);
+		assertEquals("name:tester", Fields.get(Bean.class.getDeclaredField("name"), bean));
+	}
+
+	@Test
+	public void getAndSetAccessPrivateFieldsWithoutAccessors() throws Exception {
+		Bean bean = new Bean();
+		Fields.set(Bean.class.getDeclaredField("count"), bean, 3);
+		assertEquals(3, bean.count);
+		assertEquals(3, Fields.get(Bean.class.getDeclaredField("count"), bean));
+	}
 
+	@Test(expected = ReflectionException.class)
+	public void settingNullIntoPrimitiveFieldThrowsReflectionException() throws Exception {
+		Fields.set(Bean.class.getDeclaredField("count"), new Bean(), null);
+	}
+
+	@Test
+	public void getSetterReturnsTheSetterUsedBySet() throws Exception {
+		assertEquals(Bean.class.getDeclaredMethod("setName", String.class), Fields.getSetter(Bean.class.getDeclaredField("name")));
+		assertNull(Fields.getSetter(Bean.class.getDeclaredField("count")));
+	}
+
+}